@@ -0,0 +1,44 @@
+package sequentialinvestmentgame;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * runs the benchmarks of this module like the jmh launcher, but always with the gc profiler, so every score comes
+ * with its allocations per operation (gc.alloc.rate.norm). the arguments are the usual jmh ones:
+ *
+ *      mvn -B package
+ *      java -jar benchmarks/target/benchmarks.jar                      all benchmarks
+ *      java -jar benchmarks/target/benchmarks.jar GameBenchmark -f 1   one class, one fork
+ *      java -jar benchmarks/target/benchmarks.jar -l                   list them
+ *
+ * the scores of GameBenchmark are rounds per second, the others operations per time unit as noted there.
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        if(cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+
+        Runner runner = new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build());
+
+        if(cmd.shouldList()) {
+            runner.list();
+            return;
+        }
+
+        runner.run();
+    }
+
+}
@@ -0,0 +1,91 @@
+package sequentialinvestmentgame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rounds of a single game. every invocation plays NUM_ROUNDS rounds, so the scores are rounds per second.
+ *
+ * the sizes span the configured sweeps, up to a population of 100 and 50 stages. simulate() keeps the wealth of
+ * every player in every round and never uses a kernel, winPercentages() only counts the winners and is measured on
+ * both kernels.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GameBenchmark {
+
+    private static final int NUM_ROUNDS = 10000;
+
+
+    @State(Scope.Thread)
+    public static class Size {
+
+        @Param({ "2", "20", "100" })
+        public int numPlayers;
+
+        @Param({ "5", "20", "50" })
+        public int numStages;
+
+    }
+
+    @State(Scope.Thread)
+    public static class ScalarGame {
+
+        private Game game;
+
+        @Setup
+        public void setUp(Size size) {
+            game = game(size, false);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class KernelGame {
+
+        @Param({ "false", "true" })
+        public boolean vectorKernel;
+
+        private Game game;
+
+        @Setup
+        public void setUp(Size size) {
+            game = game(size, vectorKernel);
+        }
+
+    }
+
+    private static Game game(Size size, boolean vectorKernel) {
+
+        Game.GameCfg cfg = new Game.GameCfg();
+        cfg.numStages = size.numStages;
+        cfg.numRounds = NUM_ROUNDS;
+        cfg.p = 0.6f;
+        cfg.M = 100;
+        cfg.seed = 42;
+        cfg.vectorKernel = vectorKernel;
+
+        Game res = new Game(cfg);
+        res.setPopulation(new TimeLinearStrategy(0.5f, 0.25f), new TimeLinearStrategy(-0.5f, 1.0f), size.numPlayers);
+        res.setSeed(cfg.seed);
+
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROUNDS)
+    public float[][] simulate(ScalarGame state) {
+        return state.game.simulate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROUNDS)
+    public float[] winPercentages(KernelGame state) {
+        return state.game.winPercentages();
+    }
+
+}
@@ -0,0 +1,112 @@
+package sequentialinvestmentgame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lookups in a computed payoff function. getPayoff() covers the ranking of a profile (strategyProfile2Index), and
+ * isNashEquilibrium() the payoffs of all unilateral deviations from a profile. each invocation looks at the next of
+ * NUM_PROFILES random profiles.
+ *
+ * the payoffs themselves are simulated with few rounds in the setup, only the lookups are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PayoffFunctionBenchmark {
+
+    private static final int NUM_PROFILES = 1024;
+
+    @Param({ "3", "5" })
+    public int numPlayers;
+
+    // strategies with start and end values on a grid of this many values, numValues^2 of them
+    @Param({ "3", "5" })
+    public int numValues;
+
+    private Scheduler scheduler;
+    private PayoffFunction payoffFunction;
+    private int[][] profiles;
+    private int next;
+
+
+    @Setup
+    public void setUp() throws ExecutionException, InterruptedException {
+
+        Game.GameCfg cfg = new Game.GameCfg();
+        cfg.numStages = 5;
+        cfg.numRounds = 100;
+        cfg.p = 0.6f;
+        cfg.M = 100;
+        cfg.seed = 42;
+
+        List<Strategy> strategies = strategyGrid(numValues);
+
+        // the computation reports when it is done, keep that out of the benchmark output
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            scheduler = new Scheduler();
+            payoffFunction = new PayoffFunction(numPlayers, strategies, cfg, 0.01f, scheduler);
+            payoffFunction.compute();
+        } finally {
+            System.setOut(out);
+        }
+
+        SplitMix64 random = new SplitMix64(7);
+        profiles = new int[NUM_PROFILES][numPlayers];
+        for(int[] profile : profiles) {
+            for(int i = 0; i < numPlayers; ++i) {
+                profile[i] = (int) Long.remainderUnsigned(random.nextLong(), strategies.size());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public float getPayoff() {
+        int[] profile = nextProfile();
+        return payoffFunction.getPayoff(profile, next % numPlayers);
+    }
+
+    @Benchmark
+    public boolean isNashEquilibrium() {
+        return payoffFunction.isNashEquilibrium(nextProfile());
+    }
+
+    private int[] nextProfile() {
+        next = (next + 1) & (NUM_PROFILES - 1);
+        return profiles[next];
+    }
+
+    /**
+     * the time linear strategies of Simulation for start and end values 0, 1/(numValues - 1), ..., 1.
+     */
+    private static List<Strategy> strategyGrid(int numValues) {
+
+        List<Strategy> res = new ArrayList<>();
+        for(int i = 0; i < numValues; ++i) {
+            for(int j = 0; j < numValues; ++j) {
+                float start = (float) i / (numValues - 1);
+                float end = (float) j / (numValues - 1);
+                res.add(new TimeLinearStrategy(end - start, start));
+            }
+        }
+
+        return res;
+    }
+
+}
@@ -0,0 +1,90 @@
+package sequentialinvestmentgame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one grid cell of the evolutionary stability test end to end: the stability tests of all strategies on the shared
+ * scheduler and writing the result. the config is loaded and the scheduler started once per trial, so neither is
+ * measured. the score is the time per cell.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class StabilityCellBenchmark {
+
+    @Param({ "2", "20", "100" })
+    public int populationSize;
+
+    @Param({ "5", "20", "50" })
+    public int numStages;
+
+    @Param({ "simulated", "aggregated" })
+    public String residents;
+
+    private Path dir;
+    private Simulation simulation;
+    private PrintStream out;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        dir = Files.createTempDirectory("stabilityCell");
+        Path config = dir.resolve("config.xml");
+        Files.writeString(config, String.join("\n",
+                "<?xml version = \"1.0\"?>",
+                "<Game>",
+                "    <mode>evolutionaryStabilityTest</mode>",
+                "    <numRounds>10000</numRounds>",
+                "    <epsilon>0.01</epsilon>",
+                "    <numStages>" + numStages + "</numStages>",
+                "    <winProbability>0.6</winProbability>",
+                "    <startMoney>100</startMoney>",
+                "    <populationSize>" + populationSize + "</populationSize>",
+                "    <strategyStartValues>0.0:0.25:1.001</strategyStartValues>",
+                "    <strategyEndValues>0.0:0.5:1.001</strategyEndValues>",
+                "    <outputFileName>" + dir.resolve("ess.txt") + "</outputFileName>",
+                "    <outputMode>0</outputMode>",
+                "    <seed>42</seed>",
+                "    <kernel>vector</kernel>",
+                "    <residents>" + residents + "</residents>",
+                "</Game>",
+                ""));
+
+        // the simulation prints its strategies, every cell and its totals, keep them out of the benchmark output
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        simulation = Simulation.loaded(config.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+
+        simulation.close();
+        System.setOut(out);
+
+        try(var files = Files.list(dir)) {
+            for(Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public void stabilityCell() throws Exception {
+        simulation.run();
+    }
+
+}
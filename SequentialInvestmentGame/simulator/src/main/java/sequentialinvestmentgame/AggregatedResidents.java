@@ -0,0 +1,122 @@
+package sequentialinvestmentgame;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * mutant payoffs without simulating the residents of a grid cell.
+ *
+ * the N-1 residents of a stability test are independent copies of the same strategy, and the mutant wins a round
+ * if its wealth beats the wealth of all of them. given the terminal wealth distribution of a single resident, the
+ * probability that a mutant ending with wealth v wins follows in closed form (WealthDistribution.winProbability()),
+ * ties included. so only the mutant is simulated, and the mean of its win probability over its rounds estimates
+ * its payoff with a variance no larger than that of the simulated win rate. the cost of a test does not depend on
+ * the population size anymore.
+ *
+ * the wealth distribution of every resident strategy is computed once per cell and shared by all tests against it:
+ * exactly if its support stays below cfg.numRounds atoms, otherwise as the empirical distribution of cfg.numRounds
+ * simulated rounds of a single resident. the confidence of an estimate only covers the sampling of the mutant, not
+ * the error of an empirical resident distribution.
+ */
+public class AggregatedResidents {
+
+
+    // region estimation
+
+    /**
+     * the wealth distribution of a single resident playing strategy, the resident-th strategy of the cell. it is
+     * computed by the first test that asks for it, outside the map, so tests of other residents are not held up. a
+     * test that asks while it is being computed waits for it.
+     */
+    public WealthDistribution residentDistribution(int resident, Strategy strategy) {
+
+        CompletableFuture<WealthDistribution> entry = new CompletableFuture<>();
+        CompletableFuture<WealthDistribution> existing = distributions.putIfAbsent(resident, entry);
+        if(existing != null) {
+            return existing.join();
+        }
+
+        try {
+            entry.complete(computeDistribution(resident, strategy));
+        } catch (RuntimeException e) {
+            distributions.remove(resident, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+
+        return entry.join();
+    }
+
+    private WealthDistribution computeDistribution(int resident, Strategy strategy) {
+
+        WealthDistribution res = WealthDistribution.exact(strategy, cfg, cfg.numRounds);
+        if(res != null) {
+            return res;
+        }
+
+        // a game of its own, the calling thread's pooled game is set up for the mutant
+        Game game = new Game(cfg);
+        game.setPopulation(strategy, strategy, 1);
+        game.setSeed(SplitMix64.derive(cfg.seed, resident, -1));
+
+        float[] samples = new float[cfg.numRounds];
+        game.sampleWealth(cfg.numRounds, samples);
+        return WealthDistribution.empirical(samples, cfg.numRounds);
+    }
+
+    /**
+     * payoff of a single mutant among (populationSize - 1) residents. the mutant is played in game with seed.
+     */
+    public SequentialTest.Estimate mutantPayoff(Game game, SequentialTest sequentialTest, Strategy mutant, int resident, Strategy residentStrategy, int populationSize, long seed, AtomicBoolean cancelled, float... thresholds) {
+
+        WealthDistribution residents = residentDistribution(resident, residentStrategy);
+        int numOpponents = populationSize - 1;
+
+        game.setPopulation(mutant, mutant, 1);
+        game.setSeed(seed);
+
+        return sequentialTest.estimateMean(new SequentialTest.Sampler() {
+
+            private float[] wealth = new float[0];
+
+            @Override
+            public void sample(int numRounds, double[] sums) {
+
+                if(wealth.length < numRounds) {
+                    wealth = new float[numRounds];
+                }
+                game.sampleWealth(numRounds, wealth);
+
+                for(int r = 0; r < numRounds; ++r) {
+                    double q = residents.winProbability(wealth[r], numOpponents);
+                    sums[0] += q;
+                    sums[1] += q * q;
+                }
+            }
+
+        }, cfg.numRounds, cancelled, thresholds);
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final Game.GameCfg cfg;
+    private final Map<Integer, CompletableFuture<WealthDistribution>> distributions;
+
+    // endregion
+
+
+    // region constructors
+
+    public AggregatedResidents(Game.GameCfg cfg) {
+        this.cfg = cfg.copy();
+        this.distributions = new ConcurrentHashMap<>();
+    }
+
+    // endregion
+
+}
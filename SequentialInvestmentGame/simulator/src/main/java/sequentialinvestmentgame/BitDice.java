@@ -0,0 +1,129 @@
+package sequentialinvestmentgame;
+
+/**
+ * independent dice in bulk. a die wins if a uniform random number U in [0, 1) is below p, and 64 of these
+ * comparisons are done at once on bitsliced random words: word j holds bit j of U for 64 dice, and the dice are
+ * compared against the bits of p from the most significant one down, keeping masks of the dice that are already
+ * below p (lt) and that are still equal to p so far (eq).
+ *
+ * every word halves eq on average, so after about 8 random words all 64 dice are decided and the rest of the bits
+ * of U are never drawn. once the remaining bits of p are all zero the dice still equal to p have lost. for p = 0.5
+ * a single word gives 64 dice, for 0.25 or 0.75 two words.
+ */
+public class BitDice {
+
+
+    // region dice
+
+    /**
+     * the next n <= 64 dice as bits, bit s is 1 if die s won.
+     */
+    public long next(int n) {
+
+        if(n <= numBuffered) {
+            long res = n == 64 ? buffer : buffer & ((1L << n) - 1);
+            buffer = n == 64 ? 0 : buffer >>> n;
+            numBuffered -= n;
+            return res;
+        }
+
+        // the buffered dice followed by fresh ones
+        long fresh = batch();
+        long res = buffer | (fresh << numBuffered);
+        int taken = n - numBuffered;
+        if(n < 64) {
+            res &= (1L << n) - 1;
+        }
+        buffer = taken == 64 ? 0 : fresh >>> taken;
+        numBuffered = 64 - taken;
+        return res;
+    }
+
+    /**
+     * 64 fresh dice.
+     */
+    private long batch() {
+
+        if(always) {
+            return -1L;
+        }
+        if(threshold == 0) {
+            return 0;
+        }
+
+        long lt = 0;
+        long eq = -1L;
+
+        for(int j = 63; j >= lowestBit && eq != 0; --j) {
+            long u = random.nextLong();
+            if(((threshold >>> j) & 1) != 0) {
+                lt |= eq & ~u;
+                eq &= u;
+            }
+            else {
+                eq &= ~u;
+            }
+        }
+
+        return lt;
+    }
+
+    /**
+     * sets the win probability. buffered dice of another probability are dropped.
+     */
+    public void setP(float p) {
+
+        long t;
+        if(!(p > 0) || p >= 1) {
+            t = 0;
+        }
+        else {
+            // p * 2^64 as unsigned long. a float below 1 has at most 24 significant bits, so this is exact for all
+            // p >= 2^-40
+            double scaled = Math.scalb((double) p, 64);
+            t = scaled >= 0x1.0p63 ? (long) (scaled - 0x1.0p63) | Long.MIN_VALUE : (long) scaled;
+        }
+
+        if(t != threshold || always != (p >= 1)) {
+            threshold = t;
+            always = p >= 1;
+            lowestBit = Long.numberOfTrailingZeros(t);
+            clear();
+        }
+    }
+
+    /**
+     * drops the buffered dice, e.g. after the random stream was reseeded.
+     */
+    public void clear() {
+        buffer = 0;
+        numBuffered = 0;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final SplitMix64 random;
+    // p * 2^64, p >= 1 does not fit and is marked by always
+    private long threshold;
+    private boolean always;
+    private int lowestBit;
+    private long buffer;
+    private int numBuffered;
+
+    // endregion
+
+
+    // region constructors
+
+    public BitDice(SplitMix64 random) {
+        this.random = random;
+        this.threshold = 0;
+        this.lowestBit = 64;
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,43 @@
+package sequentialinvestmentgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * flight recorder event of one grid cell of the evolutionary stability test, from the submission of its tests until
+ * the last of them finished. it is committed by the thread that finished the last test.
+ */
+@Name("sequentialinvestmentgame.Cell")
+@Label("Grid Cell")
+@Description("evolutionary stability tests of all strategies of one grid cell")
+@Category("Sequential Investment Game")
+@StackTrace(false)
+public class CellEvent extends Event {
+
+    @Label("Number of Stages")
+    int numStages;
+
+    @Label("Win Probability")
+    float winProbability;
+
+    @Label("Population Size")
+    int populationSize;
+
+    @Label("Number of Strategies")
+    int numStrategies;
+
+    @Label("Stable Strategies")
+    int numStable;
+
+    @Label("Resumed Tests")
+    @Description("tests taken from the journal")
+    int numResumed;
+
+    @Label("Simulated Rounds")
+    long numRounds;
+
+}
@@ -0,0 +1,75 @@
+package sequentialinvestmentgame;
+
+/**
+ * common random numbers for all games of a grid cell.
+ *
+ * the die of player slot i in stage s of round r only depends on the cell seed and (r, i, s), not on the strategies
+ * that are played. two profiles of a cell that are compared against each other then see the same luck, and most of
+ * the noise cancels out of the difference of their payoffs.
+ *
+ * every (slot, stage) has a key derived from the cell seed. the die of round r hashes fmix32(r * golden + key) and
+ * wins if its upper 24 bits are below p * 2^24. VectorRoundKernel evaluates the same dice in its lanes, so scalar
+ * and vector games of a cell share them. ties are broken with the same kind of hash under a key of their own.
+ */
+public class CommonDice {
+
+
+    // region dice
+
+    /**
+     * keys of all (slot, stage) pairs of games with numPlayers players and numStages stages, keys[i * numStages + s]
+     * for slot i and stage s + 1.
+     */
+    public static int[] keys(long seed, int numPlayers, int numStages) {
+
+        int[] res = new int[numPlayers * numStages];
+        for(int i = 0; i < numPlayers; ++i) {
+            for(int s = 0; s < numStages; ++s) {
+                res[i * numStages + s] = (int) SplitMix64.derive(seed, i, s);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * p as a 24 bit threshold.
+     */
+    public static int threshold(float p) {
+        return (int) Math.round(Math.min(Math.max(p, 0.0), 1.0) * (1 << 24));
+    }
+
+    public static boolean roll(int round, int key, int threshold) {
+        return (hash(round, key) >>> 8) < threshold;
+    }
+
+    /**
+     * key of the tie breaks of a cell.
+     */
+    public static int tieKey(long seed) {
+        return (int) SplitMix64.derive(seed, -1);
+    }
+
+    /**
+     * which of numTies players sharing the maximum wins round.
+     */
+    public static int tieBreak(int round, int tieKey, int numTies) {
+        return (int) (((hash(round, tieKey) & 0xffffffffL) * numTies) >>> 32);
+    }
+
+    private static int hash(int round, int key) {
+
+        // murmur3 finalizer, a bijection on ints
+        int h = round * 0x9e3779b9 + key;
+        h = (h ^ (h >>> 16)) * 0x85ebca6b;
+        h = (h ^ (h >>> 13)) * 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // endregion
+
+
+    private CommonDice() {
+    }
+
+}
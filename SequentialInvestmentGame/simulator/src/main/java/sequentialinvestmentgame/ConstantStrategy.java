@@ -1,3 +1,5 @@
+package sequentialinvestmentgame;
+
 public class ConstantStrategy implements Strategy {
 
     public ConstantStrategy(float c) {
@@ -14,5 +16,12 @@ public class ConstantStrategy implements Strategy {
         return Float.toString(mC);
     }
 
+    @Override
+    public boolean isStateIndependent() {
+        return true;
+    }
+
+    public float getC() { return mC; }
+
     private float mC;
 }
@@ -0,0 +1,213 @@
+package sequentialinvestmentgame;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * exact payoff backend for state independent strategies.
+ *
+ * the players' terminal wealths are independent, so the probability that a player wins follows from the wealth
+ * distributions alone. a player ending with wealth v wins if nobody ends with more, and wins a tie against K other
+ * players with probability 1/(K+1). averaging over the ties gives
+ *
+ *      P(win | v) = integral over t in [0, 1] of prod_j (P(W_j < v) + P(W_j = v) * t)
+ *
+ * where j runs over the other players. the integrand is a polynomial of degree numPlayers-1 and is integrated
+ * exactly with Gauss-Legendre quadrature.
+ *
+ * one instance serves one game configuration and caches the distribution of every strategy it has seen, so it can
+ * be shared by all tasks of a grid cell.
+ */
+public class ExactPayoff {
+
+    public static final int DEFAULT_MAX_SUPPORT = 1 << 16;
+
+
+    // region evaluation
+
+    /**
+     * returns the wealth distribution of strategy or null if it can not be computed exactly. it is computed by the
+     * first task that asks for it, outside the map, so tasks of other strategies are not held up. a task that asks
+     * while it is being computed waits for it.
+     */
+    public WealthDistribution distribution(Strategy strategy) {
+
+        CompletableFuture<WealthDistribution> entry = new CompletableFuture<>();
+        CompletableFuture<WealthDistribution> existing = distributions.putIfAbsent(strategy, entry);
+        if(existing != null) {
+            return existing.join();
+        }
+
+        try {
+            entry.complete(WealthDistribution.exact(strategy, cfg, maxSupport));
+        } catch (RuntimeException e) {
+            distributions.remove(strategy, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+
+        return entry.join();
+    }
+
+    /**
+     * win probability of a single player in each group, where groupSizes[g] players play groupStrategies[g].
+     * returns null if any of the strategies can not be evaluated exactly.
+     */
+    public float[] winProbabilities(Strategy[] groupStrategies, int[] groupSizes) {
+
+        int numGroups = groupStrategies.length;
+        WealthDistribution[] groupDistributions = new WealthDistribution[numGroups];
+        int totalPlayers = 0;
+        for(int g = 0; g < numGroups; ++g) {
+            groupDistributions[g] = distribution(groupStrategies[g]);
+            if(groupDistributions[g] == null) {
+                return null;
+            }
+            totalPlayers += groupSizes[g];
+        }
+
+        double[][] quadrature = gaussLegendre(totalPlayers / 2 + 1);
+        double[] nodes = quadrature[0];
+        double[] weights = quadrature[1];
+
+        int[] positions = new int[numGroups];
+        double[] below = new double[numGroups];
+        double[] at = new double[numGroups];
+        boolean[] matched = new boolean[numGroups];
+        double[] res = new double[numGroups];
+
+        while(true) {
+
+            // smallest value not yet visited by any group
+            float v = Float.POSITIVE_INFINITY;
+            boolean done = true;
+            for(int g = 0; g < numGroups; ++g) {
+                if(positions[g] < groupDistributions[g].size()) {
+                    v = Math.min(v, groupDistributions[g].getValue(positions[g]));
+                    done = false;
+                }
+            }
+            if(done) {
+                break;
+            }
+
+            for(int g = 0; g < numGroups; ++g) {
+                WealthDistribution d = groupDistributions[g];
+                matched[g] = positions[g] < d.size() && d.getValue(positions[g]) == v;
+                at[g] = matched[g] ? d.getProbability(positions[g]) : 0.0;
+            }
+
+            for(int g = 0; g < numGroups; ++g) {
+
+                if(at[g] == 0.0 || groupSizes[g] == 0) {
+                    continue;
+                }
+
+                double integral = 0.0;
+                for(int n = 0; n < nodes.length; ++n) {
+                    double product = 1.0;
+                    for(int k = 0; k < numGroups; ++k) {
+                        int exponent = k == g ? groupSizes[k] - 1 : groupSizes[k];
+                        if(exponent > 0) {
+                            product *= Math.pow(below[k] + at[k] * nodes[n], exponent);
+                        }
+                    }
+                    integral += weights[n] * product;
+                }
+
+                res[g] += at[g] * integral;
+            }
+
+            for(int g = 0; g < numGroups; ++g) {
+                if(matched[g]) {
+                    below[g] += at[g];
+                    positions[g]++;
+                }
+            }
+        }
+
+        float[] winProbabilities = new float[numGroups];
+        for(int g = 0; g < numGroups; ++g) {
+            winProbabilities[g] = (float) res[g];
+        }
+        return winProbabilities;
+    }
+
+    // endregion
+
+
+    // region quadrature
+
+    private static final Map<Integer, double[][]> quadratureRules = new ConcurrentHashMap<>();
+
+    /**
+     * nodes and weights of the n-point Gauss-Legendre rule on [0, 1]. it integrates polynomials up to degree 2n-1
+     * exactly.
+     */
+    static double[][] gaussLegendre(int n) {
+        return quadratureRules.computeIfAbsent(n, ExactPayoff::computeGaussLegendre);
+    }
+
+    private static double[][] computeGaussLegendre(int n) {
+
+        double[] nodes = new double[n];
+        double[] weights = new double[n];
+
+        for(int i = 0; i < n; ++i) {
+
+            // newton iteration on the i-th root of the legendre polynomial P_n, starting from its approximation
+            double x = Math.cos(Math.PI * (i + 0.75) / (n + 0.5));
+            double derivative;
+            for(int iteration = 0; ; ++iteration) {
+                double p0 = 1.0;
+                double p1 = x;
+                for(int j = 2; j <= n; ++j) {
+                    double p2 = ((2 * j - 1) * x * p1 - (j - 1) * p0) / j;
+                    p0 = p1;
+                    p1 = p2;
+                }
+                derivative = n * (x * p1 - p0) / (x * x - 1.0);
+                double dx = p1 / derivative;
+                x -= dx;
+                if(Math.abs(dx) < 1e-14 || iteration == 100) {
+                    break;
+                }
+            }
+
+            // map from [-1, 1] to [0, 1]
+            nodes[i] = (x + 1.0) / 2.0;
+            weights[i] = 1.0 / ((1.0 - x * x) * derivative * derivative);
+        }
+
+        return new double[][] { nodes, weights };
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final Game.GameCfg cfg;
+    private final int maxSupport;
+    // completes with null for strategies that can not be computed exactly
+    private final Map<Strategy, CompletableFuture<WealthDistribution>> distributions;
+
+    // endregion
+
+
+    // region constructors
+
+    public ExactPayoff(Game.GameCfg cfg, int maxSupport) {
+        this.cfg = cfg.copy();
+        this.maxSupport = maxSupport;
+        this.distributions = new ConcurrentHashMap<>();
+    }
+
+    public ExactPayoff(Game.GameCfg cfg) {
+        this(cfg, DEFAULT_MAX_SUPPORT);
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,514 @@
+package sequentialinvestmentgame;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+
+public class Game implements Callable<float[]> {
+
+
+    // region simulation and helpers
+
+    private void playRound() {
+
+        int numSlots = numSlots();
+        float[] money = mMoney;
+        Strategy[] strategies = mStrategies;
+        float[][] schedules = mSchedules;
+        int[] diceKeys = mDiceKeys;
+        int round = (int) mRound++;
+        long[] dice = mDice;
+        int diceWords = (mNumStages + 63) >>> 6;
+
+        // reset the wealth bank
+        for(int i = 0; i < numSlots; ++i) {
+            money[i] = mM;
+        }
+
+        // roll all independent dice of the round at once, one bitset per player
+        if(diceKeys == null) {
+            for(int i = 0; i < numSlots; ++i) {
+                for(int w = 0; w < diceWords; ++w) {
+                    dice[i * diceWords + w] = mBitDice.next(Math.min(64, mNumStages - 64 * w));
+                }
+            }
+        }
+
+        // play all stages of the round, one stage for all players at a time
+        for(int stage = 1; stage <= mNumStages; ++stage) {
+            for(int i = 0; i < numSlots; ++i) {
+
+                float[] schedule = schedules[i];
+                float fraction = schedule != null ? schedule[stage - 1] : strategies[i].eval(mP, mNumStages, stage, mNumPlayers, money[i]);
+
+                float stake = money[i] * fraction;
+                money[i] -= stake;
+
+                // 1 if the die won. adding the doubled stake times the die instead of branching on it does not
+                // depend on the branch predictor, which can not predict dice
+                int win = diceKeys != null
+                        ? (CommonDice.roll(round, diceKeys[i * mNumStages + stage - 1], mThreshold) ? 1 : 0)
+                        : (int) (dice[i * diceWords + ((stage - 1) >>> 6)] >>> (stage - 1)) & 1;
+
+                money[i] += (2 * stake) * win;
+
+            }
+        }
+
+    }
+
+    /**
+     * winner of a round whose final wealth of player i is money[first + i * stride], except for the first player
+     * whose wealth is taken from slot firstSlot. this way the round can be decided for the shadow in place of the
+     * first player.
+     */
+    private int roundWinner(float[] money, int first, int stride, int firstSlot, int round) {
+
+        if(mDiceKeys != null) {
+            return commonRoundWinner(money, first, stride, firstSlot, round);
+        }
+
+        int winner = 0;
+        float max = money[first + firstSlot * stride];
+        int numTies = 1;
+
+        for(int i = 1; i < mNumPlayers; ++i) {
+            float m = money[first + i * stride];
+            if(m > max) {
+                winner = i;
+                max = m;
+                numTies = 1;
+            }
+            else if(m == max) {
+                // pick uniformly among all players sharing the maximum
+                numTies++;
+                if(mRandom.nextInt(numTies) == 0) {
+                    winner = i;
+                }
+            }
+        }
+
+        return winner;
+    }
+
+    /**
+     * roundWinner() with a tie break that, like the dice, only depends on the round.
+     */
+    private int commonRoundWinner(float[] money, int first, int stride, int firstSlot, int round) {
+
+        float max = money[first + firstSlot * stride];
+        int numTies = 1;
+
+        for(int i = 1; i < mNumPlayers; ++i) {
+            float m = money[first + i * stride];
+            if(m > max) {
+                max = m;
+                numTies = 1;
+            }
+            else if(m == max) {
+                numTies++;
+            }
+        }
+
+        // the k-th of all players sharing the maximum wins
+        int k = numTies > 1 ? CommonDice.tieBreak(round, mTieKey, numTies) : 0;
+        if(money[first + firstSlot * stride] == max && k-- == 0) {
+            return 0;
+        }
+        for(int i = 1; ; ++i) {
+            if(money[first + i * stride] == max && k-- == 0) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * looks up the compiled stake schedules of all state independent players for the current number of stages.
+     */
+    private void prepareSchedules() {
+        ensureCapacity(numSlots());
+        if(mShadow != null) {
+            mStrategies[mNumPlayers] = mShadow;
+        }
+        for(int i = 0; i < numSlots(); ++i) {
+            mSchedules[i] = mStakeSchedules.get(mStrategies[i], mNumStages);
+        }
+        prepareDice();
+    }
+
+    /**
+     * sets up the common dice or the bitsets of the independent ones.
+     */
+    private void prepareDice() {
+
+        if(mCommonDice) {
+            prepareCommonDice();
+            return;
+        }
+
+        mDiceKeys = null;
+        mBitDice.setP(mP);
+        int size = numSlots() * ((mNumStages + 63) >>> 6);
+        if(mDice.length < size) {
+            mDice = new long[size];
+        }
+    }
+
+    /**
+     * derives the keys of the common dice of the current number of players and stages. the shadow rolls the dice of
+     * the first player.
+     */
+    private void prepareCommonDice() {
+
+        if(mDiceKeys == null || mDiceKeysNumPlayers != mNumPlayers || mDiceKeysShadow != (mShadow != null) || mDiceKeysNumStages != mNumStages || mDiceKeysSeed != mDiceSeed) {
+            mDiceKeys = CommonDice.keys(mDiceSeed, numSlots(), mNumStages);
+            if(mShadow != null) {
+                System.arraycopy(mDiceKeys, 0, mDiceKeys, mNumPlayers * mNumStages, mNumStages);
+            }
+            mDiceKeysNumPlayers = mNumPlayers;
+            mDiceKeysShadow = mShadow != null;
+            mDiceKeysNumStages = mNumStages;
+            mDiceKeysSeed = mDiceSeed;
+            mTieKey = CommonDice.tieKey(mDiceSeed);
+        }
+        mThreshold = CommonDice.threshold(mP);
+    }
+
+    /**
+     * plays numRounds rounds and adds the number of rounds each player won to wins. if the game has a shadow, wins
+     * needs two more entries: wins[numPlayers] counts the rounds the shadow won in place of the first player and
+     * wins[numPlayers + 1] the rounds that exactly one of them won.
+     */
+    public void playRounds(int numRounds, int[] wins) {
+
+        prepareSchedules();
+
+        if(mKernel != null && allPlayersScheduled()) {
+            playRoundsWithKernel(numRounds, wins);
+            return;
+        }
+
+        long start = System.nanoTime();
+        for(int i = 0; i < numRounds; ++i) {
+            playRound();
+            countWins(mMoney, 0, 1, (int) mRound - 1, wins);
+        }
+        Metrics.addTime(Metrics.Phase.SIMULATE, System.nanoTime() - start);
+        Metrics.addRounds(numRounds);
+    }
+
+    private void playRoundsWithKernel(int numRounds, int[] wins) {
+
+        if(mBlockMoney.length < numSlots() * RoundKernel.BLOCK_SIZE) {
+            mBlockMoney = new float[mStrategies.length * RoundKernel.BLOCK_SIZE];
+        }
+
+        long simulateNanos = 0;
+        long winnerNanos = 0;
+
+        for(int done = 0; done < numRounds; done += RoundKernel.BLOCK_SIZE) {
+
+            long start = System.nanoTime();
+            int blockSize = Math.min(RoundKernel.BLOCK_SIZE, numRounds - done);
+            int firstRound = (int) mRound;
+            if(mDiceKeys != null) {
+                mKernel.playBlockCommon(mSchedules, numSlots(), mNumStages, mP, mM, mDiceKeys, firstRound, mBlockMoney, blockSize);
+            }
+            else {
+                mKernel.playBlock(mSchedules, numSlots(), mNumStages, mP, mM, mRandom.nextLong(), mBlockMoney, blockSize);
+            }
+            mRound += blockSize;
+            long played = System.nanoTime();
+
+            for(int r = 0; r < blockSize; ++r) {
+                countWins(mBlockMoney, r, RoundKernel.BLOCK_SIZE, firstRound + r, wins);
+            }
+
+            simulateNanos += played - start;
+            winnerNanos += System.nanoTime() - played;
+        }
+
+        Metrics.addTime(Metrics.Phase.SIMULATE, simulateNanos);
+        Metrics.addTime(Metrics.Phase.WINNER_EXTRACTION, winnerNanos);
+        Metrics.addRounds(numRounds);
+    }
+
+    private void countWins(float[] money, int first, int stride, int round, int[] wins) {
+
+        int winner = roundWinner(money, first, stride, 0, round);
+        wins[winner]++;
+
+        if(mShadow != null) {
+            boolean shadowWins = roundWinner(money, first, stride, mNumPlayers, round) == 0;
+            if(shadowWins) {
+                wins[mNumPlayers]++;
+            }
+            if(shadowWins != (winner == 0)) {
+                wins[mNumPlayers + 1]++;
+            }
+        }
+    }
+
+    private int numSlots() {
+        return mShadow != null ? mNumPlayers + 1 : mNumPlayers;
+    }
+
+    private boolean allPlayersScheduled() {
+        for(int i = 0; i < numSlots(); ++i) {
+            if(mSchedules[i] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * plays all rounds and returns the fraction of rounds won by each player. only the win counts are kept, the
+     * wealth of the single rounds is never stored.
+     */
+    public float[] winPercentages() {
+
+        int[] wins = new int[mNumPlayers];
+        playRounds(mNumRounds, wins);
+
+        float[] res = new float[mNumPlayers];
+        for(int i = 0; i < res.length; ++i) {
+            res[i] = ((float) wins[i]) / mNumRounds;
+        }
+
+        return res;
+    }
+
+    /**
+     * plays numRounds rounds and writes the final wealth of the first player in round r to wealth[r]. meant for
+     * games with a single player, whose wealth does not depend on anybody else.
+     */
+    public void sampleWealth(int numRounds, float[] wealth) {
+
+        long start = System.nanoTime();
+        prepareSchedules();
+        for(int r = 0; r < numRounds; ++r) {
+            playRound();
+            wealth[r] = mMoney[0];
+        }
+        Metrics.addTime(Metrics.Phase.SIMULATE, System.nanoTime() - start);
+        Metrics.addRounds(numRounds);
+    }
+
+    /**
+     * plays all rounds and returns the final wealth of every player in every round.
+     */
+    public float[][] simulate() {
+
+        float[][] res = new float[mNumRounds][mNumPlayers];
+
+        long start = System.nanoTime();
+        prepareSchedules();
+        for(int i = 0; i< mNumRounds; ++i) {
+            playRound();
+            System.arraycopy(mMoney, 0, res[i], 0, mNumPlayers);
+        }
+        Metrics.addTime(Metrics.Phase.SIMULATE, System.nanoTime() - start);
+        Metrics.addRounds(mNumRounds);
+
+        return res;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private Strategy[] mStrategies;
+    private float[][] mSchedules;
+    private StakeSchedules mStakeSchedules;
+    private float[] mMoney;
+    private float[] mBlockMoney;
+    private RoundKernel mKernel;
+    private int mNumPlayers;
+    private int mNumStages;
+    private int mNumRounds;
+    private float mP;
+    private float mM;
+    private SplitMix64 mRandom;
+    // independent dice drawn from mRandom, mDice holds the bitsets of the current round
+    private BitDice mBitDice;
+    private long[] mDice;
+    // common dice, see CommonDice
+    private boolean mCommonDice;
+    private long mDiceSeed;
+    private long mDiceKeysSeed;
+    private int mDiceKeysNumStages;
+    private int mDiceKeysNumPlayers;
+    private boolean mDiceKeysShadow;
+    private int[] mDiceKeys;
+    private int mThreshold;
+    private int mTieKey;
+    // plays in place of the first player against the same opponents, see setShadow()
+    private Strategy mShadow;
+    // rounds played since the last seeding
+    private long mRound;
+
+    // endregion
+
+
+    // region getter/setters
+
+    public int getmNumStages() {
+        return mNumStages;
+    }
+
+    public float getP() { return mP; }
+
+    public int getNumPlayers() { return mNumPlayers; }
+
+    public void addPlayer(Strategy strategy) {
+        ensureCapacity(mNumPlayers + 1);
+        mStrategies[mNumPlayers++] = strategy;
+    }
+
+    /**
+     * replaces all players by one player playing first followed by (populationSize - 1) players playing others.
+     */
+    public void setPopulation(Strategy first, Strategy others, int populationSize) {
+        ensureCapacity(populationSize);
+        mStrategies[0] = first;
+        Arrays.fill(mStrategies, 1, populationSize, others);
+        if(mNumPlayers > populationSize) {
+            Arrays.fill(mStrategies, populationSize, mNumPlayers, null);
+        }
+        mNumPlayers = populationSize;
+        mShadow = null;
+    }
+
+    /**
+     * adds a shadow of the first player. it plays shadow with the dice of the first player against the same
+     * opponents, as if it took the first player's place, and its wins are counted separately by playRounds(), so the
+     * difference between first player and shadow varies much less than the payoff of either. only common dice can be
+     * shared like that, independent dice would give the shadow dice of its own and nothing in common with the first
+     * player, so a shadow needs common random numbers.
+     */
+    public void setShadow(Strategy shadow) {
+        if(shadow != null && !mCommonDice) {
+            throw new IllegalStateException("a shadow needs common random numbers");
+        }
+        mShadow = shadow;
+    }
+
+    public void removeAllPlayers() {
+        Arrays.fill(mStrategies, 0, mNumPlayers, null);
+        mNumPlayers = 0;
+        mShadow = null;
+    }
+
+    /**
+     * reconfigures this game for cfg and removes all players. the player buffers are kept, so a reset game does
+     * not allocate when it is set up again with at most as many players as before.
+     */
+    public void reset(GameCfg cfg) {
+        mNumStages = cfg.numStages;
+        mNumRounds = cfg.numRounds;
+        mP = cfg.p;
+        mM = cfg.M;
+        mRandom.setSeed(cfg.seed);
+        mBitDice.clear();
+        mKernel = cfg.vectorKernel ? RoundKernels.vector() : null;
+        mCommonDice = cfg.commonRandomNumbers;
+        mDiceSeed = cfg.seed;
+        mStakeSchedules = cfg.stakeSchedules;
+        mRound = 0;
+        removeAllPlayers();
+    }
+
+    /**
+     * restarts the random stream of this game. two games with the same players and seed produce the same results.
+     * with common dice only the tie breaks depend on seed, the dice start over at the first round.
+     */
+    public void setSeed(long seed) {
+        mRandom.setSeed(seed);
+        mBitDice.clear();
+        mRound = 0;
+    }
+
+    private void ensureCapacity(int numPlayers) {
+        if(numPlayers > mStrategies.length) {
+            // one more for a shadow
+            int capacity = Math.max(numPlayers + 1, 2 * mStrategies.length);
+            mStrategies = Arrays.copyOf(mStrategies, capacity);
+            mSchedules = new float[capacity][];
+            mMoney = new float[capacity];
+        }
+    }
+
+    // endregion
+
+
+    // region constructors
+
+    public Game(int numStages, int numRounds, float p, float M) {
+        this(numStages, numRounds, p, M, System.nanoTime());
+    }
+
+    public Game(int numStages, int numRounds, float p, float M, long seed) {
+        mNumStages = numStages;
+        mNumRounds = numRounds;
+        mP = p;
+        mM = M;
+        mStrategies = new Strategy[0];
+        mSchedules = new float[0][];
+        mMoney = new float[0];
+        mBlockMoney = new float[0];
+        mKernel = null;
+        mNumPlayers = 0;
+        mRandom = new SplitMix64(seed);
+        mBitDice = new BitDice(mRandom);
+        mDice = new long[0];
+        mStakeSchedules = new StakeSchedules();
+    }
+
+    public Game(GameCfg cfg) {
+        this(cfg.numStages, cfg.numRounds, cfg.p, cfg.M, cfg.seed);
+        mKernel = cfg.vectorKernel ? RoundKernels.vector() : null;
+        mCommonDice = cfg.commonRandomNumbers;
+        mDiceSeed = cfg.seed;
+        mStakeSchedules = cfg.stakeSchedules;
+    }
+
+    @Override
+    public float[] call() throws Exception {
+        return winPercentages();
+    }
+
+    // endregion
+
+
+    public static class GameCfg {
+
+        public int numStages;
+        public int numRounds;
+        public float p;
+        public float M;
+        public long seed;
+        // play rounds on the vector kernel where possible
+        public boolean vectorKernel;
+        // roll the dice of CommonDice, derived from seed, instead of independent ones
+        public boolean commonRandomNumbers;
+        // compiled stake schedules, shared by all copies of the config
+        public StakeSchedules stakeSchedules = new StakeSchedules();
+
+        public GameCfg copy() {
+            GameCfg res = new GameCfg();
+            res.numStages = numStages;
+            res.numRounds = numRounds;
+            res.p = p;
+            res.M = M;
+            res.seed = seed;
+            res.vectorKernel = vectorKernel;
+            res.commonRandomNumbers = commonRandomNumbers;
+            res.stakeSchedules = stakeSchedules;
+            return res;
+        }
+
+    }
+
+}
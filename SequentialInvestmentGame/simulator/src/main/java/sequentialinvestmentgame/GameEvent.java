@@ -0,0 +1,81 @@
+package sequentialinvestmentgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Arrays;
+
+/**
+ * flight recorder event of one payoff estimate: a mutant among residents in the evolutionary stability test, or a
+ * strategy profile of the payoff function.
+ */
+@Name("sequentialinvestmentgame.Game")
+@Label("Game")
+@Description("payoff estimate of one matchup or strategy profile")
+@Category("Sequential Investment Game")
+@StackTrace(false)
+public class GameEvent extends Event {
+
+    @Label("Number of Stages")
+    int numStages;
+
+    @Label("Win Probability")
+    float winProbability;
+
+    @Label("Number of Players")
+    int numPlayers;
+
+    @Label("Strategies")
+    @Description("indices of mutant and resident, or of the strategy profile")
+    String strategies;
+
+    @Label("Simulated Rounds")
+    @Description("0 if the payoff was computed exactly")
+    long numRounds;
+
+    @Label("Payoff")
+    @Description("payoff of the mutant or of the first player of the profile")
+    float payoff;
+
+    private static final EventType TYPE = EventType.getEventType(GameEvent.class);
+
+    /**
+     * starts an event of a payoff estimate, or returns null if these events are not recorded. estimates run in the
+     * innermost loop of a run, so nothing is allocated for them without a recording.
+     */
+    public static GameEvent start() {
+
+        if(!TYPE.isEnabled()) {
+            return null;
+        }
+
+        GameEvent res = new GameEvent();
+        res.begin();
+        return res;
+    }
+
+    /**
+     * fills in the event and commits it, if it is recorded at all. strategies is only turned into text then.
+     */
+    public void end(Game.GameCfg cfg, int numPlayers, int[] strategies, long numRounds, float payoff) {
+
+        end();
+        if(!shouldCommit()) {
+            return;
+        }
+
+        this.numStages = cfg.numStages;
+        this.winProbability = cfg.p;
+        this.numPlayers = numPlayers;
+        this.strategies = Arrays.toString(strategies);
+        this.numRounds = numRounds;
+        this.payoff = payoff;
+        commit();
+    }
+
+}
@@ -0,0 +1,32 @@
+package sequentialinvestmentgame;
+
+/**
+ * hands out one reusable Game per thread. tasks running on the same worker thread share the game and its buffers
+ * instead of building a new game for every task.
+ */
+public class GamePool {
+
+    private static final ThreadLocal<Game> games = new ThreadLocal<>();
+
+    /**
+     * returns the game of the calling thread, reset to cfg and without players.
+     */
+    public static Game acquire(Game.GameCfg cfg) {
+
+        Game game = games.get();
+
+        if(game == null) {
+            game = new Game(cfg);
+            games.set(game);
+        }
+        else {
+            game.reset(cfg);
+        }
+
+        return game;
+    }
+
+    private GamePool() {
+    }
+
+}
@@ -0,0 +1,194 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * append only journal of finished stability tests, so an interrupted sweep can be resumed.
+ *
+ * the file starts with a header of MAGIC, the master seed and a run key that identifies everything besides the grid
+ * cell a result depends on (seed, number of rounds, strategies, ...). the seed is kept so a run that picked a random
+ * one can be resumed with it. then follows one fixed size record per finished test:
+ *
+ *      int numStages | float p | int populationSize | int strategy | byte stable | float confidence | long numRounds
+ *
+ * every record is written as soon as its test has finished. a record cut off by a crash is dropped when the journal
+ * is opened again. the grid itself may change between runs, results of cells that are still part of it are reused.
+ */
+public class Journal {
+
+    private static final int MAGIC = 0x53494a32;
+    private static final int HEADER_SIZE = 4 + 8 + 8;
+    private static final int RECORD_SIZE = 4 + 4 + 4 + 4 + 1 + 4 + 8;
+
+
+    // region journal
+
+    /**
+     * the journaled result of a test or null if it has not been finished yet.
+     */
+    public Entry get(int numStages, float p, int populationSize, int strategy) {
+        return entries.get(new Key(numStages, p, populationSize, strategy));
+    }
+
+    public synchronized void append(int numStages, float p, int populationSize, int strategy, boolean stable, float confidence, long numRounds) throws IOException {
+
+        record.clear();
+        record.putInt(numStages).putFloat(p).putInt(populationSize).putInt(strategy);
+        record.put((byte) (stable ? 1 : 0)).putFloat(confidence).putLong(numRounds);
+        record.flip();
+
+        while(record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * the master seed of the run that wrote the journal fileName or null if there is no such journal yet.
+     */
+    public static Long readSeed(String fileName) throws IOException {
+
+        if(!Files.exists(Paths.get(fileName))) {
+            return null;
+        }
+
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && channel.read(header, header.position()) >= 0) { }
+            header.flip();
+
+            if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                return null;
+            }
+
+            return header.getLong();
+        }
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final FileChannel channel;
+    private final Map<Key, Entry> entries;
+    private final ByteBuffer record;
+
+    // endregion
+
+
+    // region getters/setters
+
+    /**
+     * number of results found in the journal when it was opened.
+     */
+    public int size() { return entries.size(); }
+
+    // endregion
+
+
+    // region constructors
+
+    /**
+     * opens the journal fileName or creates it if it does not exist. fails if it belongs to a different run.
+     */
+    public Journal(String fileName, long seed, long runKey) throws IOException {
+
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        entries = new HashMap<>();
+        record = ByteBuffer.allocate(RECORD_SIZE);
+
+        long size = channel.size();
+
+        if(size < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putLong(seed).putLong(runKey).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.position(HEADER_SIZE);
+            return;
+        }
+
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        while(content.hasRemaining() && channel.read(content, content.position()) >= 0) { }
+        content.flip();
+
+        if(content.getInt() != MAGIC || content.getLong() != seed || content.getLong() != runKey) {
+            channel.close();
+            throw new ExceptionInInitializerError("journal " + fileName + " was written by a different run");
+        }
+
+        while(content.remaining() >= RECORD_SIZE) {
+            Key key = new Key(content.getInt(), content.getFloat(), content.getInt(), content.getInt());
+            entries.put(key, new Entry(content.get() != 0, content.getFloat(), content.getLong()));
+        }
+
+        // drop a partially written record
+        long end = content.position();
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    // endregion
+
+
+    /**
+     * journaled result of a single stability test.
+     */
+    public static class Entry {
+
+        public final boolean stable;
+        public final float confidence;
+        public final long numRounds;
+
+        public Entry(boolean stable, float confidence, long numRounds) {
+            this.stable = stable;
+            this.confidence = confidence;
+            this.numRounds = numRounds;
+        }
+
+    }
+
+    private static class Key {
+
+        private final int numStages;
+        private final float p;
+        private final int populationSize;
+        private final int strategy;
+
+        Key(int numStages, float p, int populationSize, int strategy) {
+            this.numStages = numStages;
+            this.p = p;
+            this.populationSize = populationSize;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return numStages == key.numStages && Float.compare(p, key.p) == 0 && populationSize == key.populationSize && strategy == key.strategy;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(numStages, p, populationSize, strategy);
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package sequentialinvestmentgame;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * payoff estimates of (mutant, resident) matchups of one grid cell, shared by all stability tests of the cell.
+ *
+ * the test of x plays y against x and, if that is close, x against y. the latter is the first game of the test of y,
+ * so every matchup is needed by up to two tests. since a matchup is always simulated with the same seed and the
+ * same thresholds, whoever asks first can compute it for both. a test that asks for a matchup another test is
+ * computing right now waits for it instead of computing it again.
+ *
+ * with two players the game of y against x is the game of x against y seen from the other player: every round has
+ * exactly one winner, so the payoff of x is one minus the payoff of y. both orders share one entry then.
+ */
+public class MatchupCache {
+
+
+    // region cache
+
+    /**
+     * computes a matchup that is not cached yet.
+     */
+    public interface Evaluation {
+        SequentialTest.Estimate evaluate(int mutant, int resident);
+    }
+
+    /**
+     * the estimate of mutant among residents, computed by evaluation if nobody has asked for it yet. estimates
+     * taken from the cache report zero rounds. an estimate that was abandoned because cancelled was set is returned
+     * but not cached.
+     */
+    public SequentialTest.Estimate get(int mutant, int resident, AtomicBoolean cancelled, Evaluation evaluation) {
+
+        boolean mirrored = populationSize == 2 && mutant > resident;
+        int first = mirrored ? resident : mutant;
+        int second = mirrored ? mutant : resident;
+        long key = (long) first * numStrategies + second;
+
+        while(true) {
+
+            CompletableFuture<SequentialTest.Estimate> entry = new CompletableFuture<>();
+            CompletableFuture<SequentialTest.Estimate> existing = matchups.putIfAbsent(key, entry);
+
+            if(existing == null) {
+
+                SequentialTest.Estimate res;
+                try {
+                    res = evaluation.evaluate(first, second);
+                } catch (RuntimeException e) {
+                    matchups.remove(key, entry);
+                    entry.complete(null);
+                    throw e;
+                }
+
+                if(cancelled.get()) {
+                    // possibly cut short, let the next test compute it again
+                    matchups.remove(key, entry);
+                    entry.complete(null);
+                }
+                else {
+                    entry.complete(res);
+                }
+
+                return mirrored ? mirror(res, res.numRounds) : res;
+            }
+
+            SequentialTest.Estimate res = existing.join();
+            if(res != null) {
+                return mirrored ? mirror(res, 0) : new SequentialTest.Estimate(res.payoff, 0, res.confidence);
+            }
+            // the test computing it was cancelled, try again
+        }
+    }
+
+    /**
+     * the estimate of the other player of a two player matchup. the thresholds are symmetric around 1/2, so it is
+     * as far from them as the original and just as confident.
+     */
+    private SequentialTest.Estimate mirror(SequentialTest.Estimate estimate, int numRounds) {
+        return new SequentialTest.Estimate(1.0f - estimate.payoff, numRounds, estimate.confidence);
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final int numStrategies;
+    private final int populationSize;
+    private final float[] thresholds;
+    private final Map<Long, CompletableFuture<SequentialTest.Estimate>> matchups;
+
+    // endregion
+
+
+    // region getters/setters
+
+    /**
+     * the thresholds every matchup of the cell has to be estimated against, so an estimate serves all tests
+     * asking for it.
+     */
+    public float[] getThresholds() { return thresholds; }
+
+    // endregion
+
+
+    // region constructors
+
+    public MatchupCache(int numStrategies, int populationSize, float epsilon) {
+
+        this.numStrategies = numStrategies;
+        this.populationSize = populationSize;
+        this.matchups = new ConcurrentHashMap<>();
+
+        float fairShare = 1.0f / populationSize;
+        if(populationSize == 2) {
+            // symmetric around 1/2, so a mirrored estimate is as confident as the one it is mirrored from
+            thresholds = new float[] { fairShare - epsilon, fairShare, fairShare + epsilon };
+        }
+        else {
+            thresholds = new float[] { fairShare, fairShare + epsilon };
+        }
+    }
+
+    // endregion
+
+}
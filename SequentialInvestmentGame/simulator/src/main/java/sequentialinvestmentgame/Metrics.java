@@ -0,0 +1,130 @@
+package sequentialinvestmentgame;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * run wide counters: simulated rounds, the tasks of the scheduler and the time spent in the hot phases.
+ *
+ * the counters only ever grow. a reader takes a Snapshot at the start of whatever it watches and subtracts it later,
+ * like Progress does. games add their rounds and phase times once per call, not per round, so counting stays out of
+ * the inner loops.
+ */
+public final class Metrics {
+
+    public enum Phase {
+
+        // playing rounds. on the scalar path this includes picking the winners, which happens round by round
+        SIMULATE("simulate"),
+        // picking the winners of the rounds of a vector kernel block
+        WINNER_EXTRACTION("winner extraction"),
+        // turning win counts into payoffs
+        AVERAGING("averaging"),
+        NASH_CHECK("nash check");
+
+        private final String text;
+
+        Phase(String text) {
+            this.text = text;
+        }
+
+        public String toText() { return text; }
+    }
+
+
+    // region counting
+
+    public static void addRounds(long numRounds) {
+        rounds.add(numRounds);
+    }
+
+    public static void addTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * announces numTasks top level tasks that are submitted later, bit by bit, so Progress knows the total up front.
+     */
+    public static void tasksPlanned(long numTasks) {
+        tasksPlanned.add(numTasks);
+    }
+
+    static void taskSubmitted() {
+        tasksSubmitted.increment();
+    }
+
+    static void taskStarted() {
+        tasksStarted.increment();
+    }
+
+    static void taskCompleted() {
+        tasksCompleted.increment();
+    }
+
+    // endregion
+
+
+    // region snapshots
+
+    /**
+     * the counters at one point in time. the phase times are summed over all threads.
+     */
+    public static class Snapshot {
+
+        public final long nanoTime;
+        public final long rounds;
+        public final long tasksPlanned;
+        public final long tasksSubmitted;
+        public final long tasksStarted;
+        public final long tasksCompleted;
+        public final long[] phaseNanos;
+
+        private Snapshot() {
+            // completed before started before submitted, so queued and running never come out negative
+            tasksCompleted = Metrics.tasksCompleted.sum();
+            tasksStarted = Metrics.tasksStarted.sum();
+            tasksSubmitted = Metrics.tasksSubmitted.sum();
+            tasksPlanned = Metrics.tasksPlanned.sum();
+            rounds = Metrics.rounds.sum();
+            phaseNanos = new long[Phase.values().length];
+            for(int i = 0; i < phaseNanos.length; ++i) {
+                phaseNanos[i] = Metrics.phaseNanos[i].sum();
+            }
+            nanoTime = System.nanoTime();
+        }
+
+        public long getNumQueued() { return tasksSubmitted - tasksStarted; }
+
+        public long getNumRunning() { return tasksStarted - tasksCompleted; }
+
+        public long getPhaseNanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+    }
+
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private static final LongAdder rounds = new LongAdder();
+    private static final LongAdder tasksPlanned = new LongAdder();
+    private static final LongAdder tasksSubmitted = new LongAdder();
+    private static final LongAdder tasksStarted = new LongAdder();
+    private static final LongAdder tasksCompleted = new LongAdder();
+    private static final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+
+    static {
+        for(int i = 0; i < phaseNanos.length; ++i) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    // endregion
+
+
+    private Metrics() {
+    }
+
+}
@@ -0,0 +1,422 @@
+package sequentialinvestmentgame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * mixed equilibria of the symmetric game of a payoff function: a population mixture x over the strategies is
+ * iterated by discrete replicator dynamics or fictitious play until no strategy does more than tolerance better
+ * against it than the population does on average.
+ *
+ * the fitness of strategy i is its expected payoff when its numPlayers-1 opponents are drawn independently from x.
+ * with a table it is exact and takes one pass over all sorted profiles in the order of their rank: a profile with
+ * counts c is, for every strategy i in it, i against the opponents c - e_i, which are drawn with the multinomial
+ * probability (n-1)! prod_j x_j^c'_j / c'_j!. the pass is split into rank ranges that run in parallel. without a table,
+ * or if numSamples is set, numSamples opponent profiles are drawn from x instead and every strategy is played against
+ * the same ones. either way the partial sums are added up in a fixed order, so a run can be repeated exactly.
+ *
+ * the replicator dynamics circle around the equilibria of constant sum games, so for them the time average of x is
+ * checked and reported. fictitious play usually gets there in far fewer iterations.
+ */
+public class MixedEquilibriumSolver {
+
+    public enum Dynamics {
+
+        // x_i <- x_i * (f_i - shift) / (mean fitness - shift), the time average of x is the result
+        REPLICATOR("replicator dynamics"),
+        // x is the average of all best responses so far, starting from the uniform mixture
+        FICTITIOUS_PLAY("fictitious play");
+
+        private final String text;
+
+        Dynamics(String text) {
+            this.text = text;
+        }
+
+        public String toText() { return text; }
+    }
+
+    // shares below this are not printed
+    private static final double MIN_PRINTED_SHARE = 1e-4;
+
+    // the share the least fit strategy loses in one step of the replicator dynamics
+    private static final double REPLICATOR_STEP = 0.5;
+    // iterations between two regret checks of the time average of the replicator dynamics, which costs a fitness
+    private static final int REPLICATOR_CHECK_INTERVAL = 10;
+
+
+    // region solver
+
+    /**
+     * iterates the dynamics from the uniform mixture, prints the mixture it ends with and returns it.
+     */
+    public double[] solve() throws ExecutionException, InterruptedException {
+
+        // the state of the dynamics
+        double[] x = new double[numStrategies];
+        Arrays.fill(x, 1.0 / numStrategies);
+
+        // and the equilibrium it approaches. fictitious play is an average of best responses already. the replicator
+        // dynamics circle around the interior equilibria of constant sum games, there only their time average settles
+        double[] mixture = dynamics == Dynamics.FICTITIOUS_PLAY ? x : x.clone();
+
+        int iteration = 0;
+        double regret = Double.POSITIVE_INFINITY;
+
+        while(true) {
+
+            double[] fitness = fitness(x, iteration);
+
+            if(mixture == x) {
+                regret = regret(x, fitness);
+            }
+            else if(iteration % REPLICATOR_CHECK_INTERVAL == 0 || iteration >= maxIterations) {
+                // a stream of its own if sampled
+                regret = regret(mixture, fitness(mixture, -1 - iteration));
+            }
+
+            if(regret <= tolerance || iteration >= maxIterations) {
+                break;
+            }
+
+            int best = 0;
+            int worst = 0;
+            double average = 0;
+            for(int i = 0; i < numStrategies; ++i) {
+                average += x[i] * fitness[i];
+                if(fitness[i] > fitness[best]) {
+                    best = i;
+                }
+                if(fitness[i] < fitness[worst]) {
+                    worst = i;
+                }
+            }
+
+            if(dynamics == Dynamics.REPLICATOR) {
+
+                // shifting all payoffs by the same amount changes no equilibrium, only the step size. with this shift
+                // the least fit strategy loses REPLICATOR_STEP of its share
+                double shift = (fitness[worst] - (1 - REPLICATOR_STEP) * average) / REPLICATOR_STEP;
+                double sum = 0;
+                for(int i = 0; i < numStrategies; ++i) {
+                    x[i] *= average > shift ? (fitness[i] - shift) / (average - shift) : 1;
+                    sum += x[i];
+                }
+                // against rounding drift
+                for(int i = 0; i < numStrategies; ++i) {
+                    x[i] /= sum;
+                    mixture[i] += (x[i] - mixture[i]) / (iteration + 2);
+                }
+            }
+            else {
+                for(int i = 0; i < numStrategies; ++i) {
+                    x[i] = (x[i] * (iteration + 1) + (i == best ? 1 : 0)) / (iteration + 2);
+                }
+            }
+
+            iteration++;
+        }
+
+        System.out.printf("%s %s after %d iterations, regret %f\n", dynamics.toText(), regret <= tolerance ? "converged" : "stopped", iteration, regret);
+        for(int i = 0; i < numStrategies; ++i) {
+            if(mixture[i] >= MIN_PRINTED_SHARE) {
+                System.out.printf("%s\t %f\n", strategies.get(i).toText(), mixture[i]);
+            }
+        }
+
+        return mixture;
+    }
+
+    /**
+     * how much more than the population average the fittest strategy gets against mixture.
+     */
+    private double regret(double[] mixture, double[] fitness) {
+
+        double average = 0;
+        double best = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < numStrategies; ++i) {
+            average += mixture[i] * fitness[i];
+            best = Math.max(best, fitness[i]);
+        }
+
+        return best - average;
+    }
+
+    private double[] fitness(double[] x, long stream) throws ExecutionException, InterruptedException {
+        return numSamples > 0 ? sampledFitness(x, stream) : exactFitness(x);
+    }
+
+    // endregion
+
+
+    // region fitness
+
+    private double[] exactFitness(double[] x) throws ExecutionException, InterruptedException {
+
+        // x_j^c / c! for every count a profile can have
+        double[][] weights = new double[numStrategies][numPlayers + 1];
+        for(int j = 0; j < numStrategies; ++j) {
+            double power = 1;
+            for(int c = 0; c <= numPlayers; ++c) {
+                weights[j][c] = power / factorials[c];
+                power *= x[j];
+            }
+        }
+
+        long numPrefixes = prefixRanking.getNumMultisets();
+        int numChunks = (int) Math.min(numPrefixes, 4L * scheduler.getParallelism());
+        long chunkSize = (numPrefixes + numChunks - 1) / numChunks;
+
+        double[][] partials = new double[numChunks][];
+        TaskPipeline pipeline = new TaskPipeline(scheduler, maxTasksInFlight);
+        for(int c = 0; c < numChunks; ++c) {
+            int chunk = c;
+            long start = c * chunkSize;
+            long end = Math.min(numPrefixes, start + chunkSize);
+            pipeline.submit(() -> exactFitness(weights, start, end), res -> partials[chunk] = res);
+        }
+        pipeline.drain();
+
+        return sum(partials, 1);
+    }
+
+    /**
+     * the fitness contributions of the profiles whose first numPlayers-1 strategies have a rank in [start, end).
+     *
+     * the profiles of a prefix q are q + t for t from the last strategy of q on, and their ranks are consecutive.
+     * apart from the first one, t is a strategy of its own at the last position, so the probabilities of the
+     * opponents of every player only depend on q and x_t. they are worked out once per prefix, which leaves one
+     * multiplication and one payoff per distinct strategy of a profile.
+     */
+    private double[] exactFitness(double[][] weights, long start, long end) {
+
+        int m = numPlayers - 1;
+        double[] res = new double[numStrategies];
+        int[] prefix = new int[m];
+        int[] strategyProfile = new int[numPlayers];
+        // the distinct strategies of the prefix, their first positions and counts
+        int[] distinct = new int[m];
+        int[] positions = new int[m];
+        int[] counts = new int[m];
+        // probability of the opponents of the player at positions[j], without the factor x_t
+        double[] coefficients = new double[m];
+
+        if(start >= end) {
+            return res;
+        }
+        prefixRanking.unrank(start, prefix);
+
+        for(long prefixRank = start; prefixRank < end; ++prefixRank) {
+
+            int numDistinct = distinctStrategies(prefix, m, distinct, positions, counts);
+
+            // probability of the prefix as opponents of the player at the last position
+            double all = factorials[m];
+            for(int j = 0; j < numDistinct; ++j) {
+                all *= weights[distinct[j]][counts[j]];
+            }
+            for(int k = 0; k < numDistinct; ++k) {
+                coefficients[k] = factorials[m];
+                for(int j = 0; j < numDistinct; ++j) {
+                    coefficients[k] *= weights[distinct[j]][j == k ? counts[j] - 1 : counts[j]];
+                }
+            }
+
+            // the first profile repeats the last strategy of the prefix
+            int last = prefix[m - 1];
+            System.arraycopy(prefix, 0, strategyProfile, 0, m);
+            strategyProfile[m] = last;
+            long rank = ranking.rankSorted(strategyProfile);
+            addProfile(res, weights, strategyProfile, rank);
+
+            for(int t = last + 1; t < numStrategies; ++t) {
+
+                rank++;
+
+                for(int k = 0; k < numDistinct; ++k) {
+                    double probability = coefficients[k] * weights[t][1];
+                    if(probability != 0) {
+                        res[distinct[k]] += probability * payoffFunction.sortedPayoff(rank, positions[k]);
+                    }
+                }
+                if(all != 0) {
+                    res[t] += all * payoffFunction.sortedPayoff(rank, m);
+                }
+            }
+
+            if(prefixRank + 1 < end) {
+                PayoffFunction.nextStrategyProfile(prefix, numStrategies);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * adds the contributions of a single sorted profile.
+     */
+    private void addProfile(double[] res, double[][] weights, int[] strategyProfile, long rank) {
+
+        int[] distinct = new int[numPlayers];
+        int[] positions = new int[numPlayers];
+        int[] counts = new int[numPlayers];
+        int numDistinct = distinctStrategies(strategyProfile, numPlayers, distinct, positions, counts);
+
+        for(int k = 0; k < numDistinct; ++k) {
+
+            // probability of the opponents of the player at positions[k]
+            double probability = factorials[numPlayers - 1];
+            for(int j = 0; j < numDistinct; ++j) {
+                probability *= weights[distinct[j]][j == k ? counts[j] - 1 : counts[j]];
+            }
+
+            if(probability != 0) {
+                res[distinct[k]] += probability * payoffFunction.sortedPayoff(rank, positions[k]);
+            }
+        }
+    }
+
+    /**
+     * the distinct strategies of the first length strategies of a sorted profile, their first positions and how
+     * often they occur. returns their number.
+     */
+    private static int distinctStrategies(int[] sortedProfile, int length, int[] distinct, int[] positions, int[] counts) {
+
+        int res = 0;
+        for(int i = 0; i < length; ++i) {
+            if(i == 0 || sortedProfile[i] != sortedProfile[i - 1]) {
+                distinct[res] = sortedProfile[i];
+                positions[res] = i;
+                counts[res] = 0;
+                res++;
+            }
+            counts[res - 1]++;
+        }
+
+        return res;
+    }
+
+    private double[] sampledFitness(double[] x, long stream) throws ExecutionException, InterruptedException {
+
+        double[] cumulative = new double[numStrategies];
+        double sum = 0;
+        for(int i = 0; i < numStrategies; ++i) {
+            sum += x[i];
+            cumulative[i] = sum;
+        }
+
+        int numChunks = Math.min(numSamples, 4 * scheduler.getParallelism());
+
+        double[][] partials = new double[numChunks][];
+        TaskPipeline pipeline = new TaskPipeline(scheduler, maxTasksInFlight);
+        for(int c = 0; c < numChunks; ++c) {
+            int chunk = c;
+            // every chunk of every stream draws from a random stream of its own
+            long seed = SplitMix64.derive(payoffFunction.cfg.seed, stream, chunk);
+            int chunkSamples = numSamples / numChunks + (c < numSamples % numChunks ? 1 : 0);
+            pipeline.submit(() -> sampledFitness(cumulative, seed, chunkSamples), res -> partials[chunk] = res);
+        }
+        pipeline.drain();
+
+        return sum(partials, 1.0 / numSamples);
+    }
+
+    private double[] sampledFitness(double[] cumulative, long seed, int numSamples) {
+
+        double[] res = new double[numStrategies];
+        int[] opponents = new int[numPlayers - 1];
+        int[] strategyProfile = new int[numPlayers];
+        SplitMix64 random = new SplitMix64(seed);
+
+        for(int n = 0; n < numSamples; ++n) {
+
+            for(int k = 0; k < opponents.length; ++k) {
+                int i = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[numStrategies - 1]);
+                opponents[k] = Math.min(i < 0 ? -i - 1 : i, numStrategies - 1);
+            }
+            Arrays.sort(opponents);
+
+            for(int i = 0; i < numStrategies; ++i) {
+                res[i] += payoffFunction.payoffAgainst(i, opponents, strategyProfile);
+            }
+        }
+
+        return res;
+    }
+
+    private double[] sum(double[][] partials, double scale) {
+
+        double[] res = new double[numStrategies];
+        for(double[] partial : partials) {
+            for(int i = 0; i < numStrategies; ++i) {
+                res[i] += partial[i];
+            }
+        }
+        for(int i = 0; i < numStrategies; ++i) {
+            res[i] *= scale;
+        }
+
+        return res;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final PayoffFunction payoffFunction;
+    private final Dynamics dynamics;
+    private final int maxIterations;
+    private final double tolerance;
+    private final int numSamples;
+    private final Scheduler scheduler;
+    private final int maxTasksInFlight;
+
+    private final int numPlayers;
+    private final int numStrategies;
+    private final List<Strategy> strategies;
+    private final MultisetRanking ranking;
+    // ranks the first numPlayers-1 strategies of sorted profiles
+    private final MultisetRanking prefixRanking;
+    private final double[] factorials;
+
+    // endregion
+
+
+    // region constructors
+
+    /**
+     * a solver for the game of payoffFunction. the fitness is exact if numSamples is 0 and sampled from numSamples
+     * opponent profiles per iteration otherwise.
+     */
+    public MixedEquilibriumSolver(PayoffFunction payoffFunction, Dynamics dynamics, int maxIterations, double tolerance, int numSamples, Scheduler scheduler, int maxTasksInFlight) {
+
+        if(payoffFunction.getNumPlayers() < 2) {
+            throw new IllegalArgumentException("a mixed equilibrium needs at least two players");
+        }
+
+        this.payoffFunction = payoffFunction;
+        this.dynamics = dynamics;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.numSamples = numSamples;
+        this.scheduler = scheduler;
+        this.maxTasksInFlight = maxTasksInFlight;
+
+        numPlayers = payoffFunction.getNumPlayers();
+        strategies = payoffFunction.getStrategySet();
+        numStrategies = strategies.size();
+        ranking = payoffFunction.getRanking();
+        prefixRanking = new MultisetRanking(numStrategies, numPlayers - 1);
+
+        factorials = new double[numPlayers + 1];
+        factorials[0] = 1;
+        for(int c = 1; c <= numPlayers; ++c) {
+            factorials[c] = factorials[c - 1] * c;
+        }
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,137 @@
+package sequentialinvestmentgame;
+
+/**
+ * closed form ranking of strategy multisets in the order nextStrategyProfile() enumerates them, i.e. sorted
+ * profiles in lexicographic order.
+ *
+ * there are C(k+l-1, l) sorted profiles of length l over k strategies. the profiles that come before a sorted
+ * profile s are counted position by position: at position i every value v in [s_(i-1), s_i) starts a block of
+ * C((m-v)+l-1, l) profiles with l = n-i-1 remaining positions, and by the hockey stick identity these blocks sum up
+ * to C(m-s_(i-1)+l, l+1) - C(m-s_i+l, l+1).
+ */
+public class MultisetRanking {
+
+
+    // region ranking
+
+    /**
+     * rank of the multiset of strategies in profile, which does not have to be sorted. does not allocate.
+     */
+    public long rank(int[] profile) {
+
+        int[] sorted = scratch.get();
+        for(int i = 0; i < size; ++i) {
+            // insertion sort, profiles are short
+            int s = profile[i];
+            int j = i - 1;
+            while(j >= 0 && sorted[j] > s) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = s;
+        }
+
+        return rankSorted(sorted);
+    }
+
+    /**
+     * rank of a sorted profile.
+     */
+    public long rankSorted(int[] sortedProfile) {
+
+        long res = 0;
+        int previous = 0;
+
+        for(int i = 0; i < size; ++i) {
+            int remaining = size - i - 1;
+            res += binomial[numStrategies - previous + remaining][remaining + 1]
+                    - binomial[numStrategies - sortedProfile[i] + remaining][remaining + 1];
+            previous = sortedProfile[i];
+        }
+
+        return res;
+    }
+
+    /**
+     * writes the sorted profile with the given rank to sortedProfile.
+     */
+    public void unrank(long rank, int[] sortedProfile) {
+
+        int v = 0;
+
+        for(int i = 0; i < size; ++i) {
+            int remaining = size - i - 1;
+            // skip whole blocks of profiles starting with v at position i
+            while(true) {
+                long block = count(numStrategies - v, remaining);
+                if(rank < block) {
+                    break;
+                }
+                rank -= block;
+                v++;
+            }
+            sortedProfile[i] = v;
+        }
+    }
+
+    /**
+     * number of sorted profiles of length length over numValues strategies.
+     */
+    public long count(int numValues, int length) {
+        if(length == 0) {
+            return 1;
+        }
+        return binomial[numValues + length - 1][length];
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final int numStrategies;
+    private final int size;
+    private final long[][] binomial;
+    private final ThreadLocal<int[]> scratch;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int getNumStrategies() { return numStrategies; }
+
+    public int getSize() { return size; }
+
+    /**
+     * number of multisets of size getSize() over getNumStrategies() strategies.
+     */
+    public long getNumMultisets() {
+        return count(numStrategies, size);
+    }
+
+    // endregion
+
+
+    // region constructors
+
+    public MultisetRanking(int numStrategies, int size) {
+
+        this.numStrategies = numStrategies;
+        this.size = size;
+
+        // pascal's triangle up to C(numStrategies + size, size + 1)
+        binomial = new long[numStrategies + size + 1][size + 2];
+        for(int n = 0; n < binomial.length; ++n) {
+            binomial[n][0] = 1;
+            for(int k = 1; k < binomial[n].length && k <= n; ++k) {
+                binomial[n][k] = binomial[n - 1][k - 1] + (k < n ? binomial[n - 1][k] : 0);
+            }
+        }
+
+        scratch = ThreadLocal.withInitial(() -> new int[size]);
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,673 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+public class PayoffFunction {
+
+
+    PayoffFunction(int numPlayers, List<Strategy> strategySet, Game.GameCfg cfg, float epsilon, boolean exact, Scheduler scheduler) {
+        this.numPlayers = numPlayers;
+        this.strategySet = strategySet;
+        this.cfg = cfg;
+        this.scheduler = scheduler;
+        this.epsilon = epsilon;
+        this.exact = exact;
+        ranking = new MultisetRanking(strategySet.size(), numPlayers);
+        opponentRanking = new MultisetRanking(strategySet.size(), numPlayers - 1);
+    }
+
+    PayoffFunction(int numPlayers, List<Strategy> strategySet, Game.GameCfg cfg, float epsilon, Scheduler scheduler) {
+        this(numPlayers, strategySet, cfg, epsilon, false, scheduler);
+    }
+
+    /**
+     * payoff function served from a payoff table file. the payoffs stay in the mapped file.
+     */
+    PayoffFunction(PayoffTableFile table, float epsilon, Scheduler scheduler) {
+        this(table.getNumPlayers(), table.getStrategies(), table.getCfg(), epsilon, table.isExact(), scheduler);
+        payoffs = table.getPayoffs();
+    }
+
+    public void compute() throws ExecutionException, InterruptedException {
+        compute(4 * scheduler.getParallelism());
+    }
+
+    /**
+     * computes the payoffs of all sorted profiles with at most maxTasksInFlight of them queued or running at a time.
+     * a profile is only turned into a task when there is room for it, and its payoffs go into the table as soon as it
+     * finishes.
+     */
+    public void compute(int maxTasksInFlight) throws ExecutionException, InterruptedException {
+
+        TaskPipeline pipeline = new TaskPipeline(scheduler, maxTasksInFlight);
+        ExactPayoff exactPayoff = exact ? new ExactPayoff(cfg) : null;
+
+        // dense table off the heap, the payoffs of the profile with rank i start at i * numPlayers
+        long numProfiles = ranking.getNumMultisets();
+        PayoffTable table = PayoffTable.allocate(numProfiles * numPlayers);
+        Metrics.tasksPlanned(numProfiles);
+
+        int []strategyProfile = new int[numPlayers];
+        for(int i = 0; i < strategyProfile.length; ++i) {
+            strategyProfile[i] = 0;
+        }
+
+        // profiles are enumerated in the order of their rank
+        long rank = 0;
+        do {
+            int[] strategyProfileCopy = new int[numPlayers];
+            for(int i=0; i<strategyProfile.length; ++i) {
+                strategyProfileCopy[i] = strategyProfile[i];
+            }
+
+            long offset = rank * numPlayers;
+            pipeline.submit(new ProfileCallable(rank, strategyProfileCopy, exactPayoff), expectedPayoffs -> {
+                long start = System.nanoTime();
+                averageEquivalentStrategies(expectedPayoffs, strategyProfileCopy);
+                for(int i = 0; i < numPlayers; ++i) {
+                    table.put(offset + i, expectedPayoffs[i]);
+                }
+                Metrics.addTime(Metrics.Phase.AVERAGING, System.nanoTime() - start);
+            });
+            rank++;
+
+        } while(nextStrategyProfile(strategyProfile, strategySet.size()));
+
+        pipeline.drain();
+
+        payoffs = table;
+
+        System.out.printf("payoff function computation finished\n");
+
+    }
+
+    /**
+     * instead of computing all profiles up front, the payoffs of a profile are computed the first time they are
+     * needed and kept in a cache of at most cacheSize profiles. the nash search then runs maxTasksInFlight tasks at a
+     * time, which share the cache.
+     */
+    public void computeLazily(int cacheSize, int maxTasksInFlight) {
+        cache = new ProfileCache(cacheSize);
+        lazyExactPayoff = exact ? new ExactPayoff(cfg) : null;
+        this.maxTasksInFlight = maxTasksInFlight;
+    }
+
+    /**
+     * the payoffs of the sorted profile with the given rank, from the cache or evaluated now.
+     */
+    private float[] lazyPayoffs(long profileRank) {
+        return cache.get(profileRank, rank -> {
+
+            int[] sortedStrategyProfile = new int[numPlayers];
+            ranking.unrank(rank, sortedStrategyProfile);
+            float[] res = evaluate(rank, sortedStrategyProfile, lazyExactPayoff);
+
+            long start = System.nanoTime();
+            averageEquivalentStrategies(res, sortedStrategyProfile);
+            Metrics.addTime(Metrics.Phase.AVERAGING, System.nanoTime() - start);
+
+            return res;
+        });
+    }
+
+    /**
+     * writes the computed payoffs to a payoff table file.
+     */
+    public void save(String fileName) throws IOException {
+        PayoffTableFile.write(fileName, numPlayers, strategySet, cfg, exact, payoffs);
+    }
+
+    /**
+     * true if this payoff function was computed for the same players, strategies and game configuration, on the exact
+     * backend if exact is set and by simulation otherwise.
+     */
+    public boolean matches(int numPlayers, List<Strategy> strategySet, Game.GameCfg cfg, boolean exact) {
+
+        if(exact != this.exact || numPlayers != this.numPlayers || strategySet.size() != this.strategySet.size()) {
+            return false;
+        }
+        for(int i = 0; i < strategySet.size(); ++i) {
+            if(!strategySet.get(i).toText().equals(this.strategySet.get(i).toText())) {
+                return false;
+            }
+        }
+
+        return cfg.numStages == this.cfg.numStages && cfg.numRounds == this.cfg.numRounds && cfg.p == this.cfg.p
+                && cfg.M == this.cfg.M && cfg.seed == this.cfg.seed && cfg.vectorKernel == this.cfg.vectorKernel
+                && cfg.commonRandomNumbers == this.cfg.commonRandomNumbers;
+    }
+
+    /**
+     * payoff of the player at position of the sorted profile with the given rank.
+     */
+    float sortedPayoff(long profileRank, int position) {
+        return payoff(profileRank, position);
+    }
+
+    /**
+     * payoff of a player with strategy s against the sorted opponents. strategyProfile is scratch space for the
+     * sorted profile.
+     */
+    float payoffAgainst(int s, int[] sortedOpponents, int[] strategyProfile) {
+        int position = insertSorted(sortedOpponents, s, strategyProfile);
+        return payoff(ranking.rankSorted(strategyProfile), position);
+    }
+
+    private float payoff(long profileRank, int position) {
+
+        if(cache != null) {
+            return lazyPayoffs(profileRank)[position];
+        }
+
+        return payoffs.get(profileRank * numPlayers + position);
+    }
+
+    static boolean nextStrategyProfile(int[] strategyProfile, int numStrategies) {
+
+
+        int i = strategyProfile.length-1;
+        int resetDigit;
+        while(true) {
+
+            if(strategyProfile[i] < numStrategies-1) {
+
+                // increment current digit
+                strategyProfile[i]++;
+
+                // set resetDigit
+                resetDigit = strategyProfile[i];
+
+                // reset previous digits to resetDigit
+                for(int j = i+1; j < strategyProfile.length; ++j) {
+                    strategyProfile[j] = resetDigit;
+                }
+
+                // return true
+                return true;
+
+            }
+
+            // check if i is at the most significant digit
+            if(i == 0) {
+                return false;
+            }
+            else {
+                // move to next more significant digit
+                i--;
+            }
+
+        }
+
+    }
+
+    private long strategyProfile2Index(int[] strategyProfile) {
+        return ranking.rank(strategyProfile);
+    }
+
+    public float getPayoff(int[] strategyProfile, int playerIndex) {
+
+
+        long copyIndex = strategyProfile2Index(strategyProfile);
+
+
+        int sortedPlayerIndex = 0;
+        int playerStrategyNumber = strategyProfile[playerIndex];
+        for(int i=0; i<strategyProfile.length; ++i) {
+            if(strategyProfile[i] < playerStrategyNumber) {
+                sortedPlayerIndex++;
+            }
+        }
+
+
+        return payoff(copyIndex, sortedPlayerIndex);
+
+
+
+    }
+
+
+
+    /**
+     * getPayoff() of every player of strategyProfile at once, the profile is only ranked once.
+     */
+    public void getPayoffs(int[] strategyProfile, float[] res) {
+
+        long profileRank = ranking.rank(strategyProfile);
+
+        for(int i = 0; i < strategyProfile.length; ++i) {
+            int sortedPlayerIndex = 0;
+            for(int s : strategyProfile) {
+                if(s < strategyProfile[i]) {
+                    sortedPlayerIndex++;
+                }
+            }
+            res[i] = payoff(profileRank, sortedPlayerIndex);
+        }
+    }
+
+    public boolean isNashEquilibrium(int[] strategyProfile) {
+
+        int[] alternativeStrategyProfile = new int[strategyProfile.length];
+        for(int j=0; j<strategyProfile.length; ++j) {
+            alternativeStrategyProfile[j] = strategyProfile[j];
+        }
+
+        for(int i=0; i<strategyProfile.length; ++i) {
+
+
+
+            float currentPayoff = getPayoff(strategyProfile, i);
+
+            for(int j=0; j<strategySet.size(); ++j) {
+
+                if(j == strategyProfile[i])
+                    continue;
+
+                alternativeStrategyProfile[i] = j;
+
+                if(getPayoff(alternativeStrategyProfile, i) - currentPayoff > epsilon) {
+                    return false;
+                }
+
+            }
+
+            alternativeStrategyProfile[i] = strategyProfile[i];
+
+        }
+
+
+        return true;
+
+    }
+
+    /**
+     * prints all pure nash equilibria in the order of nextStrategyProfile().
+     *
+     * the game is symmetric, so the payoff of a player only depends on its own strategy and the multiset of its
+     * opponents' strategies. the best and second best payoff any strategy achieves against every opponent multiset
+     * is tabulated once, after which a profile only needs one lookup per distinct strategy in it instead of |S|
+     * deviations per player. profiles are generated as (smallest strategy s, opponents >= s), so profiles in which
+     * s already has a profitable deviation are rejected before the rest of the profile is looked at.
+     *
+     * a lazy payoff function has no table, tabulating the best responses would evaluate every profile. there the
+     * deviations of a strategy are evaluated one by one until one pays off, and the profiles of every smallest
+     * strategy s are searched in a task of their own. with symmetricOnly only the profiles in which all players play
+     * the same strategy are searched, which takes numStrategies^2 payoffs at most, however many players there are.
+     */
+    public void findNashEquilibria(boolean symmetricOnly) throws ExecutionException, InterruptedException {
+
+        long start = System.nanoTime();
+
+        int numStrategies = strategySet.size();
+        List<List<int[]>> equilibria = new ArrayList<>(Collections.nCopies(numStrategies, null));
+
+        if(cache == null) {
+            buildBestResponseTable();
+            for(int s = 0; s < numStrategies; ++s) {
+                equilibria.set(s, findNashEquilibria(s, symmetricOnly));
+            }
+            Metrics.addTime(Metrics.Phase.NASH_CHECK, System.nanoTime() - start);
+        }
+        else {
+            // the nash check time of the tasks includes the profiles they evaluate
+            TaskPipeline pipeline = new TaskPipeline(scheduler, maxTasksInFlight);
+            Metrics.tasksPlanned(numStrategies);
+            for(int s = 0; s < numStrategies; ++s) {
+                int s_ = s;
+                pipeline.submit(() -> {
+                    long taskStart = System.nanoTime();
+                    List<int[]> res = findNashEquilibria(s_, symmetricOnly);
+                    Metrics.addTime(Metrics.Phase.NASH_CHECK, System.nanoTime() - taskStart);
+                    return res;
+                }, res -> equilibria.set(s_, res));
+            }
+            pipeline.drain();
+        }
+
+        for(List<int[]> equilibriaOfS : equilibria) {
+            for(int[] strategyProfile : equilibriaOfS) {
+
+                System.out.print("[");
+                for (int j = 0; j< strategyProfile.length-1; ++j) {
+                    System.out.printf("%s, ", strategySet.get(strategyProfile[j]).toText());
+                }
+                System.out.printf("%s]", strategySet.get(strategyProfile[strategyProfile.length - 1]).toText());
+
+
+                System.out.printf("\t is a nash equilibrium\n");
+            }
+        }
+
+        if(cache != null) {
+            System.out.printf("payoff cache: %s\n", cache.toText());
+        }
+
+        System.out.printf("finished checking for nash\n");
+
+    }
+
+    public void findNashEquilibria() throws ExecutionException, InterruptedException {
+        findNashEquilibria(false);
+    }
+
+    /**
+     * the nash equilibria whose smallest strategy is s, in the order of nextStrategyProfile().
+     */
+    private List<int[]> findNashEquilibria(int s, boolean symmetricOnly) {
+
+        List<int[]> res = new ArrayList<>();
+        int[] strategyProfile = new int[numPlayers];
+        int[] opponents = new int[numPlayers - 1];
+
+        for(int i = 0; i < opponents.length; ++i) {
+            opponents[i] = s;
+        }
+
+        do {
+
+            strategyProfile[0] = s;
+            System.arraycopy(opponents, 0, strategyProfile, 1, opponents.length);
+            long profileRank = ranking.rankSorted(strategyProfile);
+
+            // s is the smallest strategy of the profile
+            if(hasProfitableDeviation(strategyProfile, 0, opponents, profileRank)) {
+                continue;
+            }
+
+            if(isNashEquilibriumSorted(strategyProfile, profileRank)) {
+                res.add(strategyProfile.clone());
+            }
+
+        } while(!symmetricOnly && opponents.length > 0 && nextStrategyProfile(opponents, strategySet.size()));
+
+        return res;
+    }
+
+    private boolean isNashEquilibriumSorted(int[] sortedStrategyProfile, long profileRank) {
+
+        int[] opponents = new int[numPlayers - 1];
+
+        // check every distinct strategy once, at its first position
+        for(int i = 1; i < sortedStrategyProfile.length; ++i) {
+
+            if(sortedStrategyProfile[i] == sortedStrategyProfile[i-1]) {
+                continue;
+            }
+
+            System.arraycopy(sortedStrategyProfile, 0, opponents, 0, i);
+            System.arraycopy(sortedStrategyProfile, i + 1, opponents, i, opponents.length - i);
+
+            if(hasProfitableDeviation(sortedStrategyProfile, i, opponents, profileRank)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * true if the player at position of the sorted profile gains more than epsilon by switching to another strategy.
+     * position has to be the first position of its strategy and opponents the sorted other players.
+     */
+    private boolean hasProfitableDeviation(int[] sortedStrategyProfile, int position, int[] opponents, long profileRank) {
+
+        int s = sortedStrategyProfile[position];
+        float currentPayoff = payoff(profileRank, position);
+
+        if(cache != null) {
+            // no table to look the best response up in, try the alternatives until one pays off
+            int[] alternativeProfile = new int[numPlayers];
+            for(int t = 0; t < strategySet.size(); ++t) {
+                if(t == s) {
+                    continue;
+                }
+                int alternativePosition = insertSorted(opponents, t, alternativeProfile);
+                if(payoff(ranking.rankSorted(alternativeProfile), alternativePosition) - currentPayoff > epsilon) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long opponentRank = opponentRanking.rankSorted(opponents);
+        float bestAlternative = bestResponseStrategy[(int) opponentRank] == s
+                ? secondBestResponse[(int) opponentRank]
+                : bestResponse[(int) opponentRank];
+
+        return bestAlternative - currentPayoff > epsilon;
+    }
+
+    /**
+     * tabulates for every multiset of numPlayers-1 opponents the best payoff a player can get against it, the
+     * strategy that gets it and the best payoff of all other strategies.
+     */
+    private void buildBestResponseTable() {
+
+        int numStrategies = strategySet.size();
+        int numOpponentProfiles = (int) opponentRanking.getNumMultisets();
+
+        bestResponse = new float[numOpponentProfiles];
+        secondBestResponse = new float[numOpponentProfiles];
+        bestResponseStrategy = new int[numOpponentProfiles];
+
+        int[] opponents = new int[numPlayers - 1];
+        int[] strategyProfile = new int[numPlayers];
+        int opponentRank = 0;
+
+        do {
+
+            float best = Float.NEGATIVE_INFINITY;
+            float secondBest = Float.NEGATIVE_INFINITY;
+            int bestStrategy = -1;
+
+            for(int t = 0; t < numStrategies; ++t) {
+
+                int position = insertSorted(opponents, t, strategyProfile);
+                float payoff = payoff(ranking.rankSorted(strategyProfile), position);
+
+                if(payoff > best) {
+                    secondBest = best;
+                    best = payoff;
+                    bestStrategy = t;
+                }
+                else if(payoff > secondBest) {
+                    secondBest = payoff;
+                }
+            }
+
+            bestResponse[opponentRank] = best;
+            secondBestResponse[opponentRank] = secondBest;
+            bestResponseStrategy[opponentRank] = bestStrategy;
+            opponentRank++;
+
+        } while(opponents.length > 0 && nextStrategyProfile(opponents, numStrategies));
+
+    }
+
+    /**
+     * writes the sorted profile of t and the sorted opponents to strategyProfile and returns the position of t.
+     */
+    private static int insertSorted(int[] opponents, int t, int[] strategyProfile) {
+
+        int position = 0;
+        while(position < opponents.length && opponents[position] < t) {
+            strategyProfile[position] = opponents[position];
+            position++;
+        }
+        strategyProfile[position] = t;
+        System.arraycopy(opponents, position, strategyProfile, position + 1, opponents.length - position);
+
+        return position;
+    }
+
+    private class ProfileCallable implements Callable<float[]> {
+
+        private long rank;
+        private int[] strategyProfile;
+        private ExactPayoff exactPayoff;
+
+        public ProfileCallable(long rank, int[] strategyProfile, ExactPayoff exactPayoff) {
+            this.rank = rank;
+            this.strategyProfile = strategyProfile;
+            this.exactPayoff = exactPayoff;
+        }
+
+        @Override
+        public float[] call() throws Exception {
+            return evaluate(rank, strategyProfile, exactPayoff);
+        }
+    }
+
+    /**
+     * payoffs of the sorted profile with the given rank, exact if exactPayoff is given and can compute them.
+     * otherwise they are simulated with a random stream of their own, derived from the rank.
+     */
+    private float[] evaluate(long rank, int[] sortedStrategyProfile, ExactPayoff exactPayoff) {
+
+        GameEvent event = GameEvent.start();
+
+        if(exactPayoff != null) {
+            float[] res = exactPayoffs(exactPayoff, sortedStrategyProfile);
+            if(res != null) {
+                if(event != null) {
+                    event.end(cfg, numPlayers, sortedStrategyProfile, 0, res[0]);
+                }
+                return res;
+            }
+        }
+
+        // monte carlo fallback on the pooled game of this thread
+        Game game = GamePool.acquire(cfg);
+        game.setSeed(SplitMix64.derive(cfg.seed, rank));
+        for(int s : sortedStrategyProfile) {
+            game.addPlayer(strategySet.get(s));
+        }
+        float[] res = game.winPercentages();
+        if(event != null) {
+            event.end(cfg, numPlayers, sortedStrategyProfile, cfg.numRounds, res[0]);
+        }
+        return res;
+    }
+
+    private float[] exactPayoffs(ExactPayoff exactPayoff, int[] sortedStrategyProfile) {
+
+        // equal strategies are adjacent in a sorted profile. collect them into groups
+        int numGroups = 1;
+        for(int i=1; i<sortedStrategyProfile.length; ++i) {
+            if(sortedStrategyProfile[i] != sortedStrategyProfile[i-1]) {
+                numGroups++;
+            }
+        }
+
+        Strategy[] groupStrategies = new Strategy[numGroups];
+        int[] groupSizes = new int[numGroups];
+        int g = -1;
+        for(int i=0; i<sortedStrategyProfile.length; ++i) {
+            if(i == 0 || sortedStrategyProfile[i] != sortedStrategyProfile[i-1]) {
+                groupStrategies[++g] = strategySet.get(sortedStrategyProfile[i]);
+            }
+            groupSizes[g]++;
+        }
+
+        float[] groupPayoffs = exactPayoff.winProbabilities(groupStrategies, groupSizes);
+        if(groupPayoffs == null) {
+            return null;
+        }
+
+        float[] res = new float[sortedStrategyProfile.length];
+        g = -1;
+        for(int i=0; i<sortedStrategyProfile.length; ++i) {
+            if(i == 0 || sortedStrategyProfile[i] != sortedStrategyProfile[i-1]) {
+                g++;
+            }
+            res[i] = groupPayoffs[g];
+        }
+        return res;
+    }
+
+
+    public int getNumPlayers() { return numPlayers; }
+
+    public List<Strategy> getStrategySet() { return strategySet; }
+
+    MultisetRanking getRanking() { return ranking; }
+
+    /**
+     * true if payoffs are evaluated on demand instead of being in a table.
+     */
+    public boolean isLazy() { return cache != null; }
+
+
+    private int numPlayers;
+    private List<Strategy> strategySet;
+    // payoffs of all sorted profiles, numPlayers per profile in the order of their rank
+    private PayoffTable payoffs;
+    Game.GameCfg cfg;
+    private Scheduler scheduler;
+    float epsilon;
+    private boolean exact;
+    private MultisetRanking ranking;
+    private MultisetRanking opponentRanking;
+    private float[] bestResponse;
+    private float[] secondBestResponse;
+    private int[] bestResponseStrategy;
+    // only if payoffs are evaluated lazily
+    private ProfileCache cache;
+    private ExactPayoff lazyExactPayoff;
+    private int maxTasksInFlight;
+
+
+
+
+
+
+
+
+
+
+
+    // region result processing
+
+    private void averageEquivalentStrategies(float[] expectedPayoffs, int[] strategyProfile) {
+
+        List<List<Integer>> equivalenceClasses = new ArrayList<>();
+        for(int i=0; i<strategySet.size(); ++i) {
+            equivalenceClasses.add(new ArrayList<>());
+        }
+
+
+
+        for(int i=0; i<strategyProfile.length; ++i) {
+            equivalenceClasses.get(strategyProfile[i]).add(i);
+        }
+
+
+
+        for(int i=0; i<equivalenceClasses.size(); ++i) {
+
+            List<Integer> currentIndices = equivalenceClasses.get(i);
+            if(currentIndices.size() == 0)
+                continue;
+
+            float average = 0;
+            for(int j=0; j<currentIndices.size(); ++j) {
+                average += expectedPayoffs[currentIndices.get(j)];
+            }
+            average /= currentIndices.size();
+
+            for(int j=0; j<currentIndices.size(); ++j) {
+                expectedPayoffs[currentIndices.get(j)] = average;
+            }
+
+
+        }
+
+    }
+
+    // endregion
+
+
+}
@@ -0,0 +1,114 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * the payoffs of all sorted profiles of a game, kept off the heap.
+ *
+ * the table is flat: the payoffs of the profile with rank r start at r * numPlayers, in the order of the sorted
+ * profile. the number of sorted profiles explodes with the number of players, so it is addressed with longs and split
+ * into chunks of CHUNK_SIZE floats, each one direct or memory mapped buffer. the heap only holds the chunk objects,
+ * the garbage collector never looks at the payoffs themselves and a single buffer's 2 GiB limit does not apply.
+ *
+ * a computed table is filled by one thread at a time, any number of threads can read it afterwards. allocated tables
+ * count against -XX:MaxDirectMemorySize, which defaults to the maximum heap size, so large ones need it raised.
+ */
+public class PayoffTable {
+
+    // 2^28 floats, 1 GiB per chunk
+    private static final int CHUNK_BITS = 28;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+
+    // region access
+
+    public float get(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    public void put(long index, float value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    /**
+     * the chunk that index lies in, positioned at index and limited to the end of the chunk. the file writer streams
+     * the table chunk by chunk through this.
+     */
+    FloatBuffer chunkAt(long index) {
+
+        FloatBuffer res = chunks[(int) (index >>> CHUNK_BITS)].duplicate();
+        res.position((int) (index & CHUNK_MASK));
+
+        return res;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final FloatBuffer[] chunks;
+    private final long size;
+
+    // endregion
+
+
+    // region getters/setters
+
+    /**
+     * number of floats in the table.
+     */
+    public long size() { return size; }
+
+    // endregion
+
+
+    // region constructors
+
+    /**
+     * a table of size floats in freshly allocated native memory, all 0.
+     */
+    public static PayoffTable allocate(long size) {
+
+        FloatBuffer[] chunks = new FloatBuffer[numChunks(size)];
+        for(int i = 0; i < chunks.length; ++i) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkSize(size, i) * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+
+        return new PayoffTable(chunks, size);
+    }
+
+    /**
+     * the size floats at offset of channel, mapped read only. the floats are stored big endian.
+     */
+    public static PayoffTable map(FileChannel channel, long offset, long size) throws IOException {
+
+        FloatBuffer[] chunks = new FloatBuffer[numChunks(size)];
+        for(int i = 0; i < chunks.length; ++i) {
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + i * CHUNK_SIZE * 4, chunkSize(size, i) * 4L).asFloatBuffer();
+        }
+
+        return new PayoffTable(chunks, size);
+    }
+
+    private static int numChunks(long size) {
+        return (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+    }
+
+    private static int chunkSize(long size, int chunk) {
+        return (int) Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE);
+    }
+
+    private PayoffTable(FloatBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,189 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * binary payoff table file, so a payoff function only has to be computed once.
+ *
+ * the header holds everything the payoffs depend on, the body is dense and can be memory mapped:
+ *
+ *      int MAGIC | int VERSION | long bodyOffset
+ *      int numPlayers | int numStrategies | long numProfiles
+ *      int numStages | int numRounds | float p | float M | long seed | byte vectorKernel | byte commonRandomNumbers
+ *      byte exact
+ *      numStrategies times: byte strategy type | float a | float b
+ *      float payoffs[numProfiles][numPlayers]
+ *
+ * profiles are the sorted strategy profiles ranked by MultisetRanking, payoffs[rank][i] is the payoff of the player
+ * at position i of the sorted profile.
+ */
+public class PayoffTableFile {
+
+    private static final int MAGIC = 0x53494750;
+    private static final int VERSION = 2;
+
+    private static final byte TIME_LINEAR_STRATEGY = 0;
+    private static final byte CONSTANT_STRATEGY = 1;
+
+
+    // region reading/writing
+
+    public static void write(String fileName, int numPlayers, List<Strategy> strategies, Game.GameCfg cfg, boolean exact, PayoffTable payoffs) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 4 + 4 + 8 + 4 + 4 + 4 + 4 + 8 + 1 + 1 + 1 + strategies.size() * 9);
+        header.putInt(MAGIC).putInt(VERSION).putLong(header.capacity());
+        header.putInt(numPlayers).putInt(strategies.size()).putLong(payoffs.size() / numPlayers);
+        header.putInt(cfg.numStages).putInt(cfg.numRounds).putFloat(cfg.p).putFloat(cfg.M).putLong(cfg.seed);
+        header.put((byte) (cfg.vectorKernel ? 1 : 0)).put((byte) (cfg.commonRandomNumbers ? 1 : 0)).put((byte) (exact ? 1 : 0));
+
+        for(Strategy strategy : strategies) {
+            if(strategy instanceof TimeLinearStrategy) {
+                header.put(TIME_LINEAR_STRATEGY).putFloat(((TimeLinearStrategy) strategy).getA()).putFloat(((TimeLinearStrategy) strategy).getB());
+            }
+            else if(strategy instanceof ConstantStrategy) {
+                header.put(CONSTANT_STRATEGY).putFloat(((ConstantStrategy) strategy).getC()).putFloat(0);
+            }
+            else {
+                throw new IllegalArgumentException("strategy " + strategy.toText() + " can not be stored in a payoff table");
+            }
+        }
+        header.flip();
+
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while(header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            // body in big endian chunks, bulk copied out of the table
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16);
+            FloatBuffer floats = chunk.asFloatBuffer();
+            for(long i = 0; i < payoffs.size(); ) {
+                FloatBuffer source = payoffs.chunkAt(i);
+                source.limit(Math.min(source.limit(), source.position() + floats.capacity()));
+                i += source.remaining();
+                floats.clear();
+                floats.put(source);
+                chunk.position(0).limit(floats.position() * 4);
+                while(chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * reads the header of fileName and maps its body.
+     */
+    public static PayoffTableFile map(String fileName) throws IOException {
+
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+
+            ByteBuffer prefix = ByteBuffer.allocate(16);
+            channel.read(prefix, 0);
+            prefix.flip();
+            if(prefix.remaining() < 16 || prefix.getInt() != MAGIC || prefix.getInt() != VERSION) {
+                throw new IOException(fileName + " is not a payoff table");
+            }
+            long bodyOffset = prefix.getLong();
+
+            ByteBuffer header = ByteBuffer.allocate((int) bodyOffset - 16);
+            channel.read(header, 16);
+            header.flip();
+
+            int numPlayers = header.getInt();
+            int numStrategies = header.getInt();
+            long numProfiles = header.getLong();
+
+            Game.GameCfg cfg = new Game.GameCfg();
+            cfg.numStages = header.getInt();
+            cfg.numRounds = header.getInt();
+            cfg.p = header.getFloat();
+            cfg.M = header.getFloat();
+            cfg.seed = header.getLong();
+            cfg.vectorKernel = header.get() != 0;
+            cfg.commonRandomNumbers = header.get() != 0;
+            boolean exact = header.get() != 0;
+
+            List<Strategy> strategies = new ArrayList<>();
+            for(int i = 0; i < numStrategies; ++i) {
+                byte type = header.get();
+                float a = header.getFloat();
+                float b = header.getFloat();
+                if(type == TIME_LINEAR_STRATEGY) {
+                    strategies.add(new TimeLinearStrategy(a, b));
+                }
+                else if(type == CONSTANT_STRATEGY) {
+                    strategies.add(new ConstantStrategy(a));
+                }
+                else {
+                    throw new IOException(fileName + " contains an unknown strategy type");
+                }
+            }
+
+            if(numProfiles != new MultisetRanking(numStrategies, numPlayers).getNumMultisets()) {
+                throw new IOException(fileName + " does not contain all profiles");
+            }
+
+            if(channel.size() < bodyOffset + numProfiles * numPlayers * 4) {
+                throw new IOException(fileName + " is truncated");
+            }
+
+            PayoffTable payoffs = PayoffTable.map(channel, bodyOffset, numProfiles * numPlayers);
+
+            return new PayoffTableFile(numPlayers, strategies, cfg, exact, payoffs);
+        }
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final int numPlayers;
+    private final List<Strategy> strategies;
+    private final Game.GameCfg cfg;
+    private final boolean exact;
+    private final PayoffTable payoffs;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int getNumPlayers() { return numPlayers; }
+
+    public List<Strategy> getStrategies() { return strategies; }
+
+    public Game.GameCfg getCfg() { return cfg; }
+
+    public boolean isExact() { return exact; }
+
+    /**
+     * the mapped body, payoffs.get(rank * numPlayers + i).
+     */
+    public PayoffTable getPayoffs() { return payoffs; }
+
+    // endregion
+
+
+    // region constructors
+
+    private PayoffTableFile(int numPlayers, List<Strategy> strategies, Game.GameCfg cfg, boolean exact, PayoffTable payoffs) {
+        this.numPlayers = numPlayers;
+        this.strategies = strategies;
+        this.cfg = cfg;
+        this.exact = exact;
+        this.payoffs = payoffs;
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,123 @@
+package sequentialinvestmentgame;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * payoffs of sorted profiles evaluated on first access, for payoff functions too large to be computed in full.
+ *
+ * at most capacity profiles are kept, the one used least recently is evicted first. every profile is simulated with
+ * a random stream derived from its rank, so an evicted profile that is needed again comes out the same. a thread that
+ * asks for a profile another thread is evaluating right now waits for it instead of evaluating it again, and such a
+ * profile is not evicted before it is done. so the cache can hold one profile per running evaluation more than its
+ * capacity.
+ */
+public class ProfileCache {
+
+
+    // region cache
+
+    /**
+     * evaluates a profile that is not cached.
+     */
+    public interface Evaluation {
+        float[] evaluate(long rank);
+    }
+
+    /**
+     * the payoffs of the sorted profile with the given rank, evaluated by evaluation if they are not cached. the
+     * returned array is shared and must not be changed.
+     */
+    public float[] get(long rank, Evaluation evaluation) {
+
+        CompletableFuture<float[]> entry;
+        boolean evaluate = false;
+
+        synchronized (entries) {
+            entry = entries.get(rank);
+            if(entry == null) {
+                entry = new CompletableFuture<>();
+                entries.put(rank, entry);
+                evict();
+                evaluate = true;
+                numEvaluated++;
+            }
+            else {
+                numHits++;
+            }
+        }
+
+        if(evaluate) {
+            try {
+                entry.complete(evaluation.evaluate(rank));
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(rank, entry);
+                }
+                entry.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        return entry.join();
+    }
+
+    /**
+     * evicts the profiles used least recently until at most capacity are left, skipping those still being evaluated.
+     */
+    private void evict() {
+
+        Iterator<CompletableFuture<float[]>> it = entries.values().iterator();
+        while(entries.size() > capacity && it.hasNext()) {
+            if(it.next().isDone()) {
+                it.remove();
+                numEvicted++;
+            }
+        }
+    }
+
+    public String toText() {
+        synchronized (entries) {
+            return String.format("%d profiles evaluated, %d lookups cached, %d evicted", numEvaluated, numHits, numEvicted);
+        }
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final int capacity;
+    // in order of last access
+    private final Map<Long, CompletableFuture<float[]>> entries;
+    private long numEvaluated;
+    private long numHits;
+    private long numEvicted;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int getCapacity() { return capacity; }
+
+    // endregion
+
+
+    // region constructors
+
+    public ProfileCache(int capacity) {
+
+        if(capacity < 1) {
+            throw new IllegalArgumentException("invalid capacity " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,121 @@
+package sequentialinvestmentgame;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rate limited progress of the scheduler tasks planned or submitted since it was started. a daemon thread prints one
+ * line every interval, no matter how many tasks finish in between:
+ *
+ *      stability tests: 41.3% done, 118 of 286 tasks, 160 queued, 8 running, 2.41e+07 rounds/s, eta 0:00:35
+ *
+ * the rate is taken over the last interval, the eta from the tasks finished so far. close() prints the totals and
+ * the time spent in every phase.
+ */
+public class Progress implements AutoCloseable {
+
+
+    // region reporting
+
+    /**
+     * prints the current progress line.
+     */
+    public synchronized void report() {
+
+        Metrics.Snapshot now = Metrics.snapshot();
+
+        // tasks submitted bit by bit are planned up front
+        long total = Math.max(now.tasksPlanned - start.tasksPlanned, now.tasksSubmitted - start.tasksSubmitted);
+        long done = now.tasksCompleted - start.tasksCompleted;
+        long elapsed = now.nanoTime - start.nanoTime;
+
+        String eta = done > 0 ? duration((long) ((double) elapsed / done * (total - done))) : "?";
+
+        out.printf("%s: %.1f%% done, %d of %d tasks, %d queued, %d running, %.3g rounds/s, eta %s\n",
+                what, total > 0 ? 100.0 * done / total : 0.0, done, total, now.getNumQueued(), now.getNumRunning(),
+                rate(now.rounds - last.rounds, now.nanoTime - last.nanoTime), eta);
+
+        last = now;
+    }
+
+    /**
+     * stops reporting and prints the totals.
+     */
+    @Override
+    public synchronized void close() {
+
+        if(timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+
+        Metrics.Snapshot now = Metrics.snapshot();
+        long elapsed = now.nanoTime - start.nanoTime;
+
+        out.printf("%s: %d tasks in %.2f s, %d rounds, %.3g rounds/s\n", what, now.tasksCompleted - start.tasksCompleted,
+                elapsed / 1e9, now.rounds - start.rounds, rate(now.rounds - start.rounds, elapsed));
+
+        // summed over all threads, so they can add up to more than the elapsed time
+        StringBuilder phases = new StringBuilder();
+        for(Metrics.Phase phase : Metrics.Phase.values()) {
+            phases.append(phases.length() == 0 ? "" : ", ");
+            phases.append(String.format("%s %.2f s", phase.toText(), (now.getPhaseNanos(phase) - start.getPhaseNanos(phase)) / 1e9));
+        }
+        out.printf("%s: %s\n", what, phases);
+    }
+
+    private static double rate(long rounds, long nanos) {
+        return nanos > 0 ? rounds * 1e9 / nanos : 0.0;
+    }
+
+    private static String duration(long nanos) {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final String what;
+    private final PrintStream out;
+    private final Metrics.Snapshot start;
+    private Metrics.Snapshot last;
+    private ScheduledExecutorService timer;
+
+    // endregion
+
+
+    // region constructors
+
+    /**
+     * starts reporting the progress of what to out every intervalMillis, never if it is 0. tasks and rounds are
+     * counted from since on.
+     */
+    public Progress(String what, PrintStream out, long intervalMillis, Metrics.Snapshot since) {
+
+        this.what = what;
+        this.out = out;
+        this.start = since;
+        this.last = since;
+
+        if(intervalMillis > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Progress(String what, PrintStream out, long intervalMillis) {
+        this(what, out, intervalMillis, Metrics.snapshot());
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,301 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * text output of results, written on a thread of its own.
+ *
+ * the text is formatted straight into large direct buffers. a full buffer is handed to the writer thread through a
+ * bounded queue and the caller continues in the next free one, so it only ever waits if the disk or console is a
+ * whole queue of buffers behind. numbers are formatted without printf: appendFixed() gives the digits of %.nf,
+ * rounded half up like printf, but always with a '.' as decimal separator.
+ *
+ * a writer is filled by one thread at a time. errors of the writer thread are thrown by close().
+ */
+public class ResultWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final int NUM_BUFFERS = 8;
+
+    // handed to the writer thread after the last buffer
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L };
+
+
+    // region formatting
+
+    public ResultWriter append(String s) {
+
+        for(int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if(c >= 0x80) {
+                // rare, encode the rest at once
+                append(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            put((byte) c);
+        }
+
+        return this;
+    }
+
+    public ResultWriter append(char c) {
+        if(c >= 0x80) {
+            return append(String.valueOf(c));
+        }
+        put((byte) c);
+        return this;
+    }
+
+    public ResultWriter append(long value) {
+
+        if(value < 0) {
+            if(value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            put((byte) '-');
+            value = -value;
+        }
+
+        // digits backwards into the scratch array
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while(value != 0);
+
+        while(n > 0) {
+            put(digits[--n]);
+        }
+
+        return this;
+    }
+
+    /**
+     * value with decimals digits after the point, what printf gives for %.nf.
+     */
+    public ResultWriter appendFixed(float value, int decimals) {
+
+        if(!Float.isFinite(value) || Math.abs(value) >= 1e9f || decimals >= POWERS_OF_TEN.length) {
+            // exact, just slower
+            return append(Float.isFinite(value) ? new BigDecimal(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString() : Float.toString(value));
+        }
+
+        if(value < 0 || (value == 0 && 1 / value < 0)) {
+            put((byte) '-');
+            value = -value;
+        }
+
+        // a float has 24 significant bits and 10^decimals = 2^decimals * 5^decimals with 5^9 < 2^21, so the product
+        // is exact as a double and rounding it half up rounds the decimal expansion of value half up
+        long scaled = Math.round((double) value * POWERS_OF_TEN[decimals]);
+
+        append(scaled / POWERS_OF_TEN[decimals]);
+        if(decimals > 0) {
+            put((byte) '.');
+            long fraction = scaled % POWERS_OF_TEN[decimals];
+            for(int d = decimals - 1; d >= 0; --d) {
+                put((byte) ('0' + fraction / POWERS_OF_TEN[d] % 10));
+            }
+        }
+
+        return this;
+    }
+
+    public ResultWriter newLine() {
+        put((byte) '\n');
+        return this;
+    }
+
+    private void append(byte[] bytes) {
+        for(byte b : bytes) {
+            put(b);
+        }
+    }
+
+    private void put(byte b) {
+        if(!buffer.hasRemaining()) {
+            handOver();
+        }
+        buffer.put(b);
+    }
+
+    // endregion
+
+
+    // region writer thread
+
+    /**
+     * passes the current buffer to the writer thread and continues in a free one.
+     */
+    private void handOver() {
+        buffer.flip();
+        putUninterruptibly(full, buffer);
+        buffer = takeUninterruptibly(free);
+        buffer.clear();
+    }
+
+    private void write() {
+
+        while(true) {
+
+            ByteBuffer next = takeUninterruptibly(full);
+            if(next == END) {
+                return;
+            }
+
+            // after an error the rest is dropped, but still taken so the caller never waits for a dead writer
+            if(failure == null) {
+                try {
+                    while(next.hasRemaining()) {
+                        channel.write(next);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+
+            putUninterruptibly(free, next);
+        }
+    }
+
+    /**
+     * writes what is left and waits for the writer thread. the console is flushed but stays open.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if(thread == null) {
+            return;
+        }
+
+        buffer.flip();
+        putUninterruptibly(full, buffer);
+        putUninterruptibly(full, END);
+
+        boolean interrupted = false;
+        while(thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        thread = null;
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if(console) {
+            System.out.flush();
+        }
+        else {
+            channel.close();
+        }
+
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    // output must not get lost because a thread was interrupted, so hand-overs wait until they succeed
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+
+        boolean interrupted = false;
+        while(true) {
+            try {
+                queue.put(element);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+
+        boolean interrupted = false;
+        try {
+            while(true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final WritableByteChannel channel;
+    private final boolean console;
+    // buffers waiting to be written, and written ones ready to be filled again
+    private final BlockingQueue<ByteBuffer> full;
+    private final BlockingQueue<ByteBuffer> free;
+    private ByteBuffer buffer;
+    private final byte[] digits;
+    private Thread thread;
+    private volatile IOException failure;
+
+    // endregion
+
+
+    // region constructors
+
+    /**
+     * a writer to the file fileName, or to the console if fileName is null.
+     */
+    public static ResultWriter open(String fileName) throws IOException {
+
+        if(fileName == null) {
+            return new ResultWriter(Channels.newChannel(System.out), true);
+        }
+
+        return new ResultWriter(FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), false);
+    }
+
+    private ResultWriter(WritableByteChannel channel, boolean console) {
+
+        this.channel = channel;
+        this.console = console;
+        // one more slot than buffers, so the end marker always fits
+        this.full = new ArrayBlockingQueue<>(NUM_BUFFERS + 1);
+        this.free = new ArrayBlockingQueue<>(NUM_BUFFERS);
+        for(int i = 1; i < NUM_BUFFERS; ++i) {
+            free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.digits = new byte[20];
+
+        // a daemon, so a run that fails before close() still exits
+        thread = new Thread(this::write, "result writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,24 @@
+package sequentialinvestmentgame;
+
+/**
+ * alternative implementation of the inner loop of Game for players that all follow compiled stake schedules.
+ * rounds are independent, so a kernel may advance many of them at once.
+ */
+public interface RoundKernel {
+
+    // rounds per block. a multiple of every vector length
+    int BLOCK_SIZE = 256;
+
+    /**
+     * plays numRounds <= BLOCK_SIZE rounds. the final wealth of player i in round r of the block is written to
+     * money[i * BLOCK_SIZE + r]. all dice of the block are derived from seed.
+     */
+    void playBlock(float[][] schedules, int numPlayers, int numStages, float p, float startMoney, long seed, float[] money, int numRounds);
+
+    /**
+     * like playBlock() but with the common dice of CommonDice, round r of the block being round firstRound + r of
+     * the game.
+     */
+    void playBlockCommon(float[][] schedules, int numPlayers, int numStages, float p, float startMoney, int[] diceKeys, int firstRound, float[] money, int numRounds);
+
+}
@@ -0,0 +1,35 @@
+package sequentialinvestmentgame;
+
+/**
+ * loads the optional round kernels. the vector kernel needs the jdk.incubator.vector module at runtime
+ * (--add-modules jdk.incubator.vector), without it games run on the scalar path. the vector kernel rolls dice of
+ * its own, so switching kernels changes the results of a seed unless common random numbers are used.
+ */
+public class RoundKernels {
+
+    private static RoundKernel vector;
+    private static boolean vectorLoaded = false;
+
+    /**
+     * the vector kernel or null if it is not available on this jvm.
+     */
+    public static synchronized RoundKernel vector() {
+
+        if(!vectorLoaded) {
+            vectorLoaded = true;
+            try {
+                // loaded by name, so nothing else depends on the incubator module
+                vector = (RoundKernel) Class.forName(RoundKernels.class.getPackageName() + ".VectorRoundKernel").getDeclaredConstructor().newInstance();
+            } catch (Exception | LinkageError e) {
+                System.out.printf("vector kernel not available (%s), using the scalar kernel\n", e);
+                vector = null;
+            }
+        }
+
+        return vector;
+    }
+
+    private RoundKernels() {
+    }
+
+}
@@ -0,0 +1,97 @@
+package sequentialinvestmentgame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+
+/**
+ * the one work stealing pool all computations of a run share. top level tasks are submitted from outside, subtasks
+ * are forked from inside running tasks and joined there. a task waiting for a subtask that has not started yet
+ * runs it itself, and idle workers steal queued subtasks, so nested parallelism neither deadlocks nor leaves cores
+ * idle behind a long task.
+ */
+public class Scheduler {
+
+
+    // region tasks
+
+    /**
+     * submits a top level task. top level tasks are counted in Metrics as queued, running and completed.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return submit(task, null);
+    }
+
+    /**
+     * submits a top level task and runs whenCompleted after it, once it is counted as completed.
+     */
+    public <T> Future<T> submit(Callable<T> task, Runnable whenCompleted) {
+
+        Metrics.taskSubmitted();
+
+        return pool.submit(() -> {
+            Metrics.taskStarted();
+            try {
+                return task.call();
+            } finally {
+                Metrics.taskCompleted();
+                if(whenCompleted != null) {
+                    whenCompleted.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * starts a subtask. inside a task of this scheduler it is pushed onto the current worker's queue, from where
+     * other workers can steal it, otherwise it is submitted like a top level task.
+     */
+    public ForkJoinTask<?> fork(Runnable task) {
+
+        ForkJoinTask<?> res = ForkJoinTask.adapt(task);
+
+        if(ForkJoinTask.getPool() == pool) {
+            res.fork();
+        }
+        else {
+            pool.execute(res);
+        }
+
+        return res;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private ForkJoinPool pool;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int getParallelism() { return pool.getParallelism(); }
+
+    // endregion
+
+
+    // region constructors
+
+    public Scheduler(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public Scheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // endregion
+
+}
@@ -0,0 +1,270 @@
+package sequentialinvestmentgame;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * estimates the payoff of the first player of a game in batches of rounds and stops as soon as the estimate is
+ * clearly on one side of every decision threshold.
+ *
+ * for a threshold t the score statistic z = (q - t) / sqrt(t * (1 - t) / n) of the observed win rate q after n
+ * rounds tells how surely the true payoff lies on the same side of t as q. the achieved confidence of an estimate
+ * is 2 * Phi(min |z|) - 1 over all thresholds, and simulation stops once it reaches the required confidence or
+ * maxRounds rounds are played. a non adaptive test always plays maxRounds rounds and only reports the confidence.
+ * in both cases a running estimate is abandoned after the current batch once its cancelled flag is set.
+ *
+ * the required confidence holds per look, not for the test as a whole. an adaptive test compares z to the same
+ * quantile after every batch without correcting for the repeated looks, so the chance that it stops on the wrong
+ * side of a threshold grows with the number of batches and its overall confidence is below the required one. it
+ * is a way to save rounds on clear cases; for a guaranteed overall confidence use the fixed rule.
+ */
+public class SequentialTest {
+
+
+    // region estimation
+
+    public Estimate estimateFirstPlayer(Game game, int maxRounds, AtomicBoolean cancelled, float... thresholds) {
+
+        int[] wins = new int[game.getNumPlayers()];
+        int numRounds = 0;
+        float confidence = 0;
+
+        while(numRounds < maxRounds && !cancelled.get()) {
+
+            int batch = Math.min(batchSize, maxRounds - numRounds);
+            game.playRounds(batch, wins);
+            numRounds += batch;
+
+            if(adaptive) {
+                confidence = confidence((float) wins[0] / numRounds, numRounds, thresholds);
+                if(confidence >= requiredConfidence) {
+                    break;
+                }
+            }
+        }
+
+        if(numRounds == 0) {
+            return new Estimate(0, 0, 0);
+        }
+        if(!adaptive) {
+            confidence = confidence((float) wins[0] / numRounds, numRounds, thresholds);
+        }
+        return new Estimate((float) wins[0] / numRounds, numRounds, confidence);
+    }
+
+    /**
+     * estimates the payoff of the first player of a game with a shadow (see Game.setShadow()) whose payoff is known
+     * to be reference. the shadow's win rate serves as control variate: the first player's win rate is corrected by
+     * beta times the error of the shadow's win rate, with beta = cov(first, shadow) / var(shadow) estimated from the
+     * same rounds. both win rates come from the same common dice and move together, so the corrected estimate varies
+     * much less than the win rate itself.
+     */
+    public Estimate estimateFirstPlayerAgainstShadow(Game game, int maxRounds, AtomicBoolean cancelled, float reference, float... thresholds) {
+
+        int numPlayers = game.getNumPlayers();
+        int[] wins = new int[numPlayers + 2];
+        int numRounds = 0;
+        float confidence = 0;
+
+        while(numRounds < maxRounds && !cancelled.get()) {
+
+            int batch = Math.min(batchSize, maxRounds - numRounds);
+            game.playRounds(batch, wins);
+            numRounds += batch;
+
+            if(adaptive) {
+                confidence = sampleConfidence(controlled(wins[0], wins[numPlayers], wins[numPlayers + 1], numRounds, reference), numRounds, thresholds);
+                if(confidence >= requiredConfidence) {
+                    break;
+                }
+            }
+        }
+
+        if(numRounds == 0) {
+            return new Estimate(0, 0, 0);
+        }
+
+        double[] estimate = controlled(wins[0], wins[numPlayers], wins[numPlayers + 1], numRounds, reference);
+        if(!adaptive) {
+            confidence = sampleConfidence(estimate, numRounds, thresholds);
+        }
+        return new Estimate((float) estimate[0], numRounds, confidence);
+    }
+
+    /**
+     * sampler of a payoff that is known in every round as a number in [0, 1], not only as won or lost.
+     */
+    public interface Sampler {
+
+        /**
+         * plays numRounds rounds and adds the sum of their payoffs to sums[0] and the sum of their squares to
+         * sums[1].
+         */
+        void sample(int numRounds, double[] sums);
+
+    }
+
+    /**
+     * estimates a payoff by the mean over rounds of sampler, with the same stopping rule as estimateFirstPlayer()
+     * but with the sample variance of the payoffs in place of the variance of a win rate.
+     */
+    public Estimate estimateMean(Sampler sampler, int maxRounds, AtomicBoolean cancelled, float... thresholds) {
+
+        double[] sums = new double[2];
+        int numRounds = 0;
+        float confidence = 0;
+
+        while(numRounds < maxRounds && !cancelled.get()) {
+
+            int batch = Math.min(batchSize, maxRounds - numRounds);
+            sampler.sample(batch, sums);
+            numRounds += batch;
+
+            if(adaptive) {
+                confidence = sampleConfidence(mean(sums, numRounds), numRounds, thresholds);
+                if(confidence >= requiredConfidence) {
+                    break;
+                }
+            }
+        }
+
+        if(numRounds == 0) {
+            return new Estimate(0, 0, 0);
+        }
+
+        double[] estimate = mean(sums, numRounds);
+        if(!adaptive) {
+            confidence = sampleConfidence(estimate, numRounds, thresholds);
+        }
+        return new Estimate((float) estimate[0], numRounds, confidence);
+    }
+
+    private static double[] mean(double[] sums, int n) {
+        double mean = sums[0] / n;
+        return new double[] { mean, Math.max(sums[1] / n - mean * mean, 0.0) };
+    }
+
+    /**
+     * control variate estimate {payoff, variance of a single round} from the wins of the first player and the
+     * shadow and the number of rounds exactly one of them won.
+     */
+    static double[] controlled(int firstWins, int shadowWins, int numDiscordant, int n, float reference) {
+
+        double first = (double) firstWins / n;
+        double shadow = (double) shadowWins / n;
+        double both = (firstWins + shadowWins - numDiscordant) / 2.0 / n;
+
+        double firstVariance = first * (1.0 - first);
+        double shadowVariance = shadow * (1.0 - shadow);
+        double covariance = both - first * shadow;
+
+        double beta = shadowVariance > 0 ? covariance / shadowVariance : 0.0;
+
+        return new double[] { first - beta * (shadow - reference), Math.max(firstVariance - beta * covariance, 0.0) };
+    }
+
+    /**
+     * confidence of an estimate {payoff, variance of a single round} after n rounds.
+     */
+    static float sampleConfidence(double[] estimate, int n, float... thresholds) {
+
+        double minZ = Double.POSITIVE_INFINITY;
+
+        for(float t : thresholds) {
+
+            if(t <= 0 || t >= 1) {
+                continue;
+            }
+
+            double distance = Math.abs(estimate[0] - t);
+            double z = estimate[1] > 0 ? distance / Math.sqrt(estimate[1] / n) : (distance > 0 ? Double.POSITIVE_INFINITY : 0.0);
+            minZ = Math.min(minZ, z);
+        }
+
+        return confidence(minZ);
+    }
+
+    /**
+     * confidence that the true payoff lies on the same side of all thresholds as the payoff q observed in n rounds.
+     */
+    public static float confidence(float q, int n, float... thresholds) {
+
+        double minZ = Double.POSITIVE_INFINITY;
+
+        for(float t : thresholds) {
+
+            // a threshold outside of (0, 1) can not be crossed by a win rate
+            if(t <= 0 || t >= 1) {
+                continue;
+            }
+
+            double z = Math.abs(q - t) / Math.sqrt(t * (1.0 - t) / n);
+            minZ = Math.min(minZ, z);
+        }
+
+        return confidence(minZ);
+    }
+
+    private static float confidence(double minZ) {
+        if(minZ == Double.POSITIVE_INFINITY) {
+            return 1.0f;
+        }
+        return (float) (2.0 * normalCdf(minZ) - 1.0);
+    }
+
+    /**
+     * standard normal cdf, using the complementary error function approximation from numerical recipes
+     * (fractional error below 1.2e-7).
+     */
+    static double normalCdf(double z) {
+
+        double x = Math.abs(z) / Math.sqrt(2.0);
+        double t = 1.0 / (1.0 + 0.5 * x);
+        double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+
+        return z >= 0 ? 1.0 - erfc / 2.0 : erfc / 2.0;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private int batchSize;
+    private float requiredConfidence;
+    private boolean adaptive;
+
+    // endregion
+
+
+    // region constructors
+
+    public SequentialTest(int batchSize, float requiredConfidence, boolean adaptive) {
+        this.batchSize = batchSize;
+        this.requiredConfidence = requiredConfidence;
+        this.adaptive = adaptive;
+    }
+
+    // endregion
+
+
+    /**
+     * payoff estimate of a single player together with the number of rounds it took and its achieved confidence.
+     * exact results have confidence 1 and zero rounds.
+     */
+    public static class Estimate {
+
+        public final float payoff;
+        public final int numRounds;
+        public final float confidence;
+
+        public Estimate(float payoff, int numRounds, float confidence) {
+            this.payoff = payoff;
+            this.numRounds = numRounds;
+            this.confidence = confidence;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package sequentialinvestmentgame;
+
+/**
+ * one of numShards parts of the grid of an evolutionary stability test.
+ *
+ * the grid cells are numbered in the order Simulation loops over them (numStages, then winProbability, then
+ * populationSize) and dealt out round robin, so every shard gets cells of all sizes. a shard journals its results
+ * into a shard file of its own, see Journal, and the merge step reads the results of all cells back from the shard
+ * files. shards can run anywhere as long as they share the config, including its seed.
+ */
+public class Shard {
+
+
+    // region shards
+
+    /**
+     * the shard that cell cellIndex belongs to.
+     */
+    public static int of(int cellIndex, int numShards) {
+        return cellIndex % numShards;
+    }
+
+    public boolean contains(int cellIndex) {
+        return of(cellIndex, numShards) == index;
+    }
+
+    /**
+     * name of the shard file, baseName.index-of-numShards.
+     */
+    public String fileName(String baseName) {
+        return baseName + "." + index + "-of-" + numShards;
+    }
+
+    /**
+     * parses "index/numShards".
+     */
+    public static Shard parse(String text) {
+
+        String[] parts = text.split("/");
+        if(parts.length != 2) {
+            throw new IllegalArgumentException("shard " + text + " is not index/numShards");
+        }
+
+        return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    public String toText() {
+        return index + "/" + numShards;
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final int index;
+    private final int numShards;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int getIndex() { return index; }
+
+    public int getNumShards() { return numShards; }
+
+    // endregion
+
+
+    // region constructors
+
+    public Shard(int index, int numShards) {
+
+        if(numShards < 1 || index < 0 || index >= numShards) {
+            throw new IllegalArgumentException("invalid shard " + index + "/" + numShards);
+        }
+
+        this.index = index;
+        this.numShards = numShards;
+    }
+
+    // endregion
+
+}
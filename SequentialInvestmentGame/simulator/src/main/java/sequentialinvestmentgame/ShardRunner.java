@@ -0,0 +1,69 @@
+package sequentialinvestmentgame;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * runs all shards of a sweep as local processes and merges their results.
+ *
+ * every shard is a JVM of its own with the options of this one, so a shard neither shares the heap nor the fate of
+ * the others. a shard that fails leaves its shard file behind and can be run again on its own, it resumes from there.
+ */
+public class ShardRunner {
+
+
+    /**
+     * runs the numShards shards of the sweep configured in configFileName, waits for all of them and merges their
+     * results if they all succeeded. returns false if a shard or the merge failed.
+     */
+    public static boolean run(String configFileName, int numShards) throws IOException, InterruptedException {
+
+        List<Process> processes = new ArrayList<>();
+        for(int i = 0; i < numShards; ++i) {
+            Shard shard = new Shard(i, numShards);
+            processes.add(new ProcessBuilder(command(configFileName, shard)).inheritIO().start());
+            System.out.printf("shard %s started\n", shard.toText());
+        }
+
+        int numFailed = 0;
+        for(int i = 0; i < numShards; ++i) {
+            int exitCode = processes.get(i).waitFor();
+            if(exitCode != 0) {
+                System.out.printf("shard %d/%d failed with exit code %d\n", i, numShards, exitCode);
+                numFailed++;
+            }
+        }
+
+        if(numFailed > 0) {
+            System.out.printf("%d of %d shards failed, run them again with --shard before merging\n", numFailed, numShards);
+            return false;
+        }
+
+        return !new Simulation(configFileName, null, numShards).failed();
+    }
+
+    /**
+     * this JVM with its options, running shard.
+     */
+    private static List<String> command(String configFileName, Shard shard) {
+
+        List<String> res = new ArrayList<>();
+        res.add(ProcessHandle.current().info().command().orElse(System.getProperty("java.home") + "/bin/java"));
+        res.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        res.add("-cp");
+        res.add(System.getProperty("java.class.path"));
+        res.add(Simulation.class.getName());
+        res.add(configFileName);
+        res.add("--shard");
+        res.add(shard.toText());
+
+        return res;
+    }
+
+
+    private ShardRunner() {
+    }
+
+}
@@ -0,0 +1,1511 @@
+package sequentialinvestmentgame;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.abs;
+
+public class Simulation {
+
+    // region evolutionary stability test
+
+    private void evolutionaryStabilityTest(Document doc) throws IOException, ExecutionException, InterruptedException {
+
+        // region variable declarations
+        Game.GameCfg cfg = new Game.GameCfg();
+        float epsilon;
+        List<Integer> numStages;
+        List<Float> p;
+        List<Float> strategyStartValues;
+        List<Float> strategyEndValues;
+        List<Strategy> strategies;
+        List<Integer> populationSize;
+        ResultWriter writer;
+        TaskPipeline pipeline;
+        boolean[][][][] res;
+        int numCallables = 0;
+        int outputMode;
+        long seed;
+        boolean exact;
+        boolean aggregatedResidents;
+        SequentialTest sequentialTest;
+        float[][][][] confidence;
+        AtomicLong numSimulatedRounds = new AtomicLong();
+        int numResumed = 0;
+        // endregion
+
+
+        // region load parameters from config file
+
+        if(loadFloatRange(doc, "epsilon") != null) {
+            epsilon = loadFloatRange(doc, "epsilon").get(0);}
+        else { throw new ExceptionInInitializerError("epsilon not found in config"); }
+
+        if(loadIntRange(doc, "numStages") != null) {
+            numStages = loadIntRange(doc, "numStages");}
+        else { throw new ExceptionInInitializerError("numStages not found in config"); }
+
+        if(loadIntRange(doc, "numRounds") != null) {
+            cfg.numRounds = loadIntRange(doc, "numRounds").get(0);}
+        else { throw new ExceptionInInitializerError("numRounds not found in config"); }
+
+        if(loadFloatRange(doc, "winProbability") != null) {
+            p = loadFloatRange(doc, "winProbability");}
+        else { throw new ExceptionInInitializerError("winProbability not found in config"); }
+
+        if(loadFloatRange(doc, "startMoney") != null) {
+            cfg.M = loadFloatRange(doc, "startMoney").get(0);}
+        else { throw new ExceptionInInitializerError("startMoney not found in config"); }
+
+        if(loadIntRange(doc, "populationSize") != null) {populationSize = loadIntRange(doc, "populationSize");}
+        else { throw new ExceptionInInitializerError("populationSize not found in config"); }
+
+        strategyStartValues = loadStakeFractions(doc, "strategyStartValues");
+
+        strategyEndValues = loadStakeFractions(doc, "strategyEndValues");
+
+        strategies = new ArrayList<>();
+        for(int i=0; i<strategyStartValues.size(); ++i){
+            float offset = strategyStartValues.get(i);
+            float slope = 0;
+            System.out.printf("slope = %f | offset = %f " + i +"\n", slope, offset);
+            strategies.add(new TimeLinearStrategy(slope, offset));}
+
+        int c =0;
+        for(int i=0; i<strategyStartValues.size(); ++i) {
+            for(int j=0; j<strategyEndValues.size(); j++){
+                
+                float slope = (strategyEndValues.get(j) - strategyStartValues.get(i));
+                float offset = strategyStartValues.get(i);
+                if (slope != 0){
+                    ++c;
+                    strategies.add(new TimeLinearStrategy(slope, offset));
+                    System.out.printf("slope = %f | offset = %f " + (c - 1 + strategyStartValues.size())  + "\n", slope, offset);
+                }
+            }}
+
+        // a shard only writes its shard file, the output is written by the merge
+        writer = shard == null ? ResultWriter.open(loadString(doc, "outputFileName")) : null;
+
+        if(loadIntRange(doc, "outputMode") != null) {
+            outputMode = loadIntRange(doc, "outputMode").get(0);}
+        else { throw new ExceptionInInitializerError("outputMode not found in config"); }
+
+        if((shard != null || numMergedShards > 0) && loadString(doc, "seed") == null) {
+            throw new ExceptionInInitializerError("seed not found in config, all shards need the same one");
+        }
+
+        String shardFileName = loadString(doc, "shardFileName") != null ? loadString(doc, "shardFileName") : "shard";
+
+        // finished tests of an earlier, interrupted run of the same config are taken from the journal. a shard
+        // journals into its shard file instead
+        String journalFileName = shard != null ? shard.fileName(shardFileName) : loadString(doc, "journalFileName");
+
+        seed = loadSeed(doc, journalFileName);
+        exact = loadExactBackend(doc);
+        cfg.vectorKernel = loadVectorKernel(doc);
+        cfg.commonRandomNumbers = loadCommonRandomNumbers(doc);
+        aggregatedResidents = loadAggregatedResidents(doc);
+        sequentialTest = loadSequentialTest(doc);
+
+        long runKey = runKey(doc, seed, cfg, epsilon, exact, aggregatedResidents, strategies);
+
+        if(journalFileName != null) {
+            journal = openJournal(journalFileName, seed, runKey);
+            System.out.printf("%d results in journal\n", journal.size());
+        }
+
+        // the merge takes all results from the shard files
+        Journal[] shardJournals = null;
+        if(numMergedShards > 0) {
+            shardJournals = new Journal[numMergedShards];
+            for(int i = 0; i < numMergedShards; ++i) {
+                String fileName = new Shard(i, numMergedShards).fileName(shardFileName);
+                if(!new File(fileName).exists()) {
+                    throw new ExceptionInInitializerError("shard file " + fileName + " not found");
+                }
+                shardJournals[i] = openJournal(fileName, seed, runKey);
+            }
+        }
+
+        res = new boolean[numStages.size()][p.size()][populationSize.size()][strategies.size()];
+        confidence = new float[numStages.size()][p.size()][populationSize.size()][strategies.size()];
+        // tasks are generated cell by cell while earlier ones run, and their results are collected as they finish
+        pipeline = new TaskPipeline(scheduler, maxTasksInFlight);
+
+        // endregion
+
+        // progress is counted from before the first submission, against all tests not taken from a journal
+        Metrics.Snapshot submitted = Metrics.snapshot();
+        Metrics.tasksPlanned(shardJournals != null ? 0 : numTests(numStages, p, populationSize, strategies.size(), journal));
+        int numCells = 0;
+
+        Progress progress = new Progress(shard != null ? "stability tests of shard " + shard.toText() : "stability tests", System.out, progressInterval, submitted);
+        try {
+
+            // region loop over numStages
+            int i1 = 0;
+            for(int numStages_ : numStages) {
+                cfg.numStages = numStages_;
+
+                // region loop over winProbabilities
+                int i2 = 0;
+                for(float p_ : p) {
+                    cfg.p = p_;
+
+                    // region loop over population size
+                    int i3 = 0;
+                    for (int populationSize_ : populationSize) {
+                        // region evolutionary stability test
+                        // the cells of other shards stay empty
+                        int cellIndex = numCells++;
+                        if(shard != null && !shard.contains(cellIndex)) {
+                            i3++;
+                            continue;
+                        }
+                        System.out.printf("numStages = %d, p = %f, populationSize = %d\n", numStages_, p_, populationSize_);
+                        cfg.seed = cellSeed(seed, numStages_, p_, populationSize_);
+                        // strategy wealth distributions are shared by all tasks of the grid cell
+                        ExactPayoff exactPayoff = exact ? new ExactPayoff(cfg) : null;
+                        // and so are the matchups they play
+                        MatchupCache matchupCache = new MatchupCache(strategies.size(), populationSize_, epsilon);
+                        // and the wealth distributions of the residents if these are not simulated
+                        AggregatedResidents residents = aggregatedResidents ? new AggregatedResidents(cfg) : null;
+                        CellProgress cell = new CellProgress(cfg, populationSize_, strategies.size());
+
+                        // loop over all mStrategies to test if they are evolutionary stable
+                        int i4 = 0;
+                        for (int x = 0; x < strategies.size(); ++x) {
+
+                            int c1 = i1, c2 = i2, c3 = i3, c4 = i4;
+
+                            Journal.Entry entry = journal != null ? journal.get(numStages_, p_, populationSize_, x) : null;
+                            if(shardJournals != null) {
+                                entry = shardJournals[Shard.of(cellIndex, numMergedShards)].get(numStages_, p_, populationSize_, x);
+                                if(entry == null) {
+                                    throw new ExceptionInInitializerError(String.format("shard %d/%d has no result for numStages = %d, p = %f, populationSize = %d, strategy %d",
+                                            Shard.of(cellIndex, numMergedShards), numMergedShards, numStages_, p_, populationSize_, x));
+                                }
+                            }
+                            if(entry != null) {
+                                res[c1][c2][c3][c4] = entry.stable;
+                                confidence[c1][c2][c3][c4] = entry.confidence;
+                                cell.testDone(entry.stable, 0, true);
+                                numResumed++;
+                            }
+                            else {
+                                //System.out.printf("testing evolutionary stability of strategy %d\n", x);
+                                pipeline.submit(new isEvolutionaryStableCallable(x, strategies, populationSize_, cfg.copy(), epsilon, exactPayoff, sequentialTest, matchupCache, residents, cell), result -> {
+                                    res[c1][c2][c3][c4] = result.stable;
+                                    confidence[c1][c2][c3][c4] = result.confidence;
+                                    numSimulatedRounds.addAndGet(result.numRounds);
+                                });
+                            }
+                            numCallables++;
+
+                            i4++;
+                        }
+                        // endregion
+                        i3++;
+                    }
+
+                    // endregion
+                    i2++;
+                }
+
+                // endregion
+
+                i1++;
+            }
+
+            // endregion
+
+            pipeline.drain();
+        }
+        finally {
+            progress.close();
+        }
+
+
+
+        if(journal != null) {
+            System.out.printf("resumed %d of %d results from journal\n", numResumed, numCallables);
+            journal.close();
+        }
+
+        if(shardJournals != null) {
+            System.out.printf("merged %d results from %d shards\n", numResumed, numMergedShards);
+            for(Journal shardJournal : shardJournals) {
+                shardJournal.close();
+            }
+        }
+
+        System.out.printf("simulated %d rounds\n", numSimulatedRounds.get());
+
+        if(shard != null) {
+            System.out.printf("results of shard %s are in %s\n", shard.toText(), journalFileName);
+            return;
+        }
+
+        writeToFile(writer, res, outputMode, numStages, p, populationSize);
+
+        writer.close();
+
+        // achieved confidence of every result, in the same layout as the results
+        if(loadString(doc, "confidenceFileName") != null) {
+            try(ResultWriter confidenceWriter = ResultWriter.open(loadString(doc, "confidenceFileName"))) {
+                writeCells(confidenceWriter, outputMode, numStages, p, populationSize, strategies.size(), (w, i, j, k, s) -> w.appendFixed(confidence[i][j][k][s], 4).append(' '));
+            }
+        }
+
+    }
+
+    /**
+     * number of stability tests of the grid this run has to do, without those of other shards and those already in
+     * journal. the journal may hold results of other shards as well, so only the tests of own cells are looked up.
+     */
+    private int numTests(List<Integer> numStages, List<Float> p, List<Integer> populationSize, int numStrategies, Journal journal) {
+
+        int res = 0;
+        int cellIndex = 0;
+        for(int numStages_ : numStages) {
+            for(float p_ : p) {
+                for(int populationSize_ : populationSize) {
+                    if(shard == null || shard.contains(cellIndex)) {
+                        for(int x = 0; x < numStrategies; ++x) {
+                            if(journal == null || journal.get(numStages_, p_, populationSize_, x) == null) {
+                                res++;
+                            }
+                        }
+                    }
+                    cellIndex++;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    private StabilityResult isEvolutionaryStable(int xIndex, List<Strategy> strategies, int populationSize, float epsilon, Game.GameCfg cfg, ExactPayoff exactPayoff, SequentialTest sequentialTest, MatchupCache matchupCache, AggregatedResidents residents) throws ExecutionException, InterruptedException {
+
+        /* if N mPlayers play the same strategy each player has 1/N chance to win. so the expected payoff is 1/N.
+            *  now test if any other strategy y performs better against x than x itself.
+            *  the invaders y are shared between this task and helper subtasks forked on the scheduler. idle workers
+            *  steal the helpers, and as soon as one of them finds an invader that beats x, the invaders after it are
+            *  stopped. the ones before it are finished, so the result is that of the first invader beating x, however
+            *  the invaders were spread over threads. a helper nobody has stolen by the time this task runs out of
+            *  invaders is run here by join() and returns right away.*/
+
+        InvaderSearch search = new InvaderSearch(xIndex, strategies, populationSize, epsilon, cfg, exactPayoff, sequentialTest, matchupCache, residents);
+
+        List<ForkJoinTask<?>> helpers = new ArrayList<>();
+        int numHelpers = Math.min(scheduler.getParallelism() - 1, (strategies.size() - 1) / MIN_INVADERS_PER_HELPER);
+        for(int i = 0; i < numHelpers; ++i) {
+            helpers.add(scheduler.fork(search::testInvaders));
+        }
+
+        search.testInvaders();
+
+        for(ForkJoinTask<?> helper : helpers) {
+            helper.join();
+        }
+
+        return search.result();
+    }
+
+    /**
+     * invader testing of a single strategy x, shared by the task testing x and its helpers.
+     */
+    private class InvaderSearch {
+
+        private int xIndex;
+        private List<Strategy> strategies;
+        private int populationSize;
+        private float epsilon;
+        private Game.GameCfg cfg;
+        private ExactPayoff exactPayoff;
+        private SequentialTest sequentialTest;
+        private MatchupCache matchupCache;
+        private AggregatedResidents residents;
+
+        private AtomicInteger nextY;
+        // the first invader found to beat x so far, strategies.size() while there is none
+        private AtomicInteger firstInvader;
+        // cancellation flags of the invaders being tested right now
+        private Map<Integer, AtomicBoolean> running;
+        // the least confidence of all comparisons x survived
+        private float survivedConfidence;
+        private float invaderConfidence;
+        private StabilityResult res;
+
+        public InvaderSearch(int xIndex, List<Strategy> strategies, int populationSize, float epsilon, Game.GameCfg cfg, ExactPayoff exactPayoff, SequentialTest sequentialTest, MatchupCache matchupCache, AggregatedResidents residents) {
+            this.xIndex = xIndex;
+            this.strategies = strategies;
+            this.populationSize = populationSize;
+            this.epsilon = epsilon;
+            this.cfg = cfg;
+            this.exactPayoff = exactPayoff;
+            this.sequentialTest = sequentialTest;
+            this.matchupCache = matchupCache;
+            this.residents = residents;
+            nextY = new AtomicInteger(0);
+            firstInvader = new AtomicInteger(strategies.size());
+            running = new ConcurrentHashMap<>();
+            survivedConfidence = 1.0f;
+            res = new StabilityResult();
+        }
+
+        /**
+         * the result once all invaders are done. a stable result is as confident as its least confident comparison,
+         * an unstable result as confident as the comparison with the first invader that beat x.
+         */
+        public synchronized StabilityResult result() {
+            res.stable = firstInvader.get() == strategies.size();
+            res.confidence = res.stable ? survivedConfidence : invaderConfidence;
+            return res;
+        }
+
+        /**
+         * tests invaders until none are left before the first one that beats x.
+         */
+        public void testInvaders() {
+
+            // every thread works with its own pooled game
+            Game game = GamePool.acquire(cfg);
+
+            while(true) {
+
+                int y = nextY.getAndIncrement();
+                if(y >= firstInvader.get()) {
+                    break;
+                }
+
+                // skip if x == y
+                if(y == xIndex) {
+                    continue;
+                }
+
+                AtomicBoolean cancelled = new AtomicBoolean(false);
+                running.put(y, cancelled);
+                // an invader before y may have beaten x in between, without seeing the flag
+                if(y < firstInvader.get()) {
+                    testInvader(game, y, cancelled);
+                }
+                running.remove(y);
+            }
+        }
+
+        /* every game gets its own random stream derived from the cell seed and the (mutant, resident) pair, so the
+         * result does not depend on which thread runs it. all games are played against the thresholds of the matchup
+         * cache, so whichever test plays a matchup first can hand it on to the other.
+         * the test of y is abandoned once cancelled is set.*/
+        private void testInvader(Game game, int y, AtomicBoolean cancelled) {
+
+            // run simulation
+            SequentialTest.Estimate expectedPayoff = matchupPayoff(game, y, xIndex, cancelled);
+            float comparisonConfidence = expectedPayoff.confidence;
+            long numRounds = expectedPayoff.numRounds;
+            boolean beatsX = false;
+
+            // check if first condition is satisfied. if no, check second condition
+            if (!(1.0f / populationSize > expectedPayoff.payoff)) {
+                //System.out.printf("first condition failed for %d vs %d. expectedPayoff was %f\n", x, y, expectedPayoff[0]);
+
+                // check if second condition is satisfied
+                if (abs((1.0f / populationSize) - expectedPayoff.payoff) <= epsilon) {
+
+                    // check if x performs strictly better against y population than y.
+
+                    // run simulation
+                    expectedPayoff = matchupPayoff(game, xIndex, y, cancelled);
+                    comparisonConfidence = Math.min(comparisonConfidence, expectedPayoff.confidence);
+                    numRounds += expectedPayoff.numRounds;
+
+                    // check if second condition is satisfied. if yes, move on to check next y
+                    if (!(expectedPayoff.payoff > 1.0f / populationSize)) {
+                        // second condition is also false. => x is not evolutionary stable
+                        //System.out.printf("second (2) condition failed for %d vs %d\n", x, y);
+                        beatsX = true;
+                    }
+                } else {
+                    // second condition is also false. => x is not evolutionary stable
+                    //System.out.printf("second (1) condition failed for %d vs %d\n", x, y);
+                    beatsX = true;
+                }
+
+            }
+
+            synchronized (this) {
+
+                res.numRounds += numRounds;
+
+                // an invader after the first one that beats x does not matter, its comparison may have been cut short
+                if(y > firstInvader.get()) {
+                    return;
+                }
+
+                if(beatsX) {
+                    firstInvader.set(y);
+                    invaderConfidence = comparisonConfidence;
+                    for(Map.Entry<Integer, AtomicBoolean> other : running.entrySet()) {
+                        if(other.getKey() > y) {
+                            other.getValue().set(true);
+                        }
+                    }
+                }
+                else {
+                    survivedConfidence = Math.min(survivedConfidence, comparisonConfidence);
+                }
+            }
+        }
+
+        private SequentialTest.Estimate matchupPayoff(Game game, int mutant, int resident, AtomicBoolean cancelled) {
+            return matchupCache.get(mutant, resident, cancelled, (m, r) -> {
+                GameEvent event = GameEvent.start();
+                SequentialTest.Estimate res = mutantPayoff(game, exactPayoff, residents, sequentialTest, cfg, strategies, m, r, populationSize, cancelled, matchupCache.getThresholds());
+                if(event != null) {
+                    event.end(cfg, populationSize, new int[] { m, r }, res.numRounds, res.payoff);
+                }
+                return res;
+            });
+        }
+    }
+
+    /**
+     * expected payoff of a single mutant among (populationSize - 1) residents. it is computed exactly if an exact
+     * backend is given and both strategies allow it. otherwise it is simulated with a seed derived from the cell seed
+     * and the (mutant, resident) pair, for at most cfg.numRounds rounds and until it is clear on which side of the
+     * thresholds it lies, against aggregated residents if they are given. the simulation is abandoned early once
+     * cancelled is set.
+     */
+    private SequentialTest.Estimate mutantPayoff(Game game, ExactPayoff exactPayoff, AggregatedResidents residents, SequentialTest sequentialTest, Game.GameCfg cfg, List<Strategy> strategies, int mutant, int resident, int populationSize, AtomicBoolean cancelled, float... thresholds) {
+
+        if(exactPayoff != null) {
+            float[] res = exactPayoff.winProbabilities(new Strategy[] { strategies.get(mutant), strategies.get(resident) }, new int[] { 1, populationSize - 1 });
+            if(res != null) {
+                return new SequentialTest.Estimate(res[0], 0, 1.0f);
+            }
+        }
+
+        if(residents != null) {
+            return residents.mutantPayoff(game, sequentialTest, strategies.get(mutant), resident, strategies.get(resident), populationSize, SplitMix64.derive(cfg.seed, mutant, resident), cancelled, thresholds);
+        }
+
+        game.setPopulation(strategies.get(mutant), strategies.get(resident), populationSize);
+        game.setSeed(SplitMix64.derive(cfg.seed, mutant, resident));
+
+        // with common dice the mutant is measured against a resident in its place, whose payoff is exactly 1/N
+        if(cfg.commonRandomNumbers) {
+            game.setShadow(strategies.get(resident));
+            return sequentialTest.estimateFirstPlayerAgainstShadow(game, cfg.numRounds, cancelled, 1.0f / populationSize, thresholds);
+        }
+
+        return sequentialTest.estimateFirstPlayer(game, cfg.numRounds, cancelled, thresholds);
+    }
+
+    /**
+     * result of the stability test of a single strategy together with its achieved confidence and the number of
+     * simulated rounds it took.
+     */
+    private static class StabilityResult {
+
+        boolean stable;
+        float confidence;
+        long numRounds;
+
+        StabilityResult() { }
+
+        StabilityResult(boolean stable, float confidence, long numRounds) {
+            this.stable = stable;
+            this.confidence = confidence;
+            this.numRounds = numRounds;
+        }
+
+    }
+
+    /**
+     * the tests of one grid cell that are still running. the test that finishes last records the cell as a
+     * CellEvent, timed from the creation of this.
+     */
+    private static class CellProgress {
+
+        private final CellEvent event;
+        private final AtomicInteger numRemaining;
+        private final AtomicInteger numStable;
+        private final AtomicInteger numResumed;
+        private final AtomicLong numRounds;
+
+        CellProgress(Game.GameCfg cfg, int populationSize, int numStrategies) {
+            event = new CellEvent();
+            event.begin();
+            event.numStages = cfg.numStages;
+            event.winProbability = cfg.p;
+            event.populationSize = populationSize;
+            event.numStrategies = numStrategies;
+            numRemaining = new AtomicInteger(numStrategies);
+            numStable = new AtomicInteger();
+            numResumed = new AtomicInteger();
+            numRounds = new AtomicLong();
+        }
+
+        void testDone(boolean stable, long rounds, boolean resumed) {
+
+            if(stable) {
+                numStable.incrementAndGet();
+            }
+            if(resumed) {
+                numResumed.incrementAndGet();
+            }
+            numRounds.addAndGet(rounds);
+
+            if(numRemaining.decrementAndGet() == 0) {
+                event.end();
+                if(event.shouldCommit()) {
+                    event.numStable = numStable.get();
+                    event.numResumed = numResumed.get();
+                    event.numRounds = numRounds.get();
+                    event.commit();
+                }
+            }
+        }
+
+    }
+
+    private class isEvolutionaryStableCallable implements Callable<StabilityResult> {
+
+        private int xIndex;
+        private List<Strategy> strategies;
+        private int populationSize;
+        private Game.GameCfg cfg;
+        private float epsilon;
+        private ExactPayoff exactPayoff;
+        private SequentialTest sequentialTest;
+        private MatchupCache matchupCache;
+        private AggregatedResidents residents;
+        private CellProgress cell;
+
+        public isEvolutionaryStableCallable(int xIndex, List<Strategy> strategies, int populationSize, Game.GameCfg cfg, float epsilon, ExactPayoff exactPayoff, SequentialTest sequentialTest, MatchupCache matchupCache, AggregatedResidents residents, CellProgress cell) {
+            this.xIndex = xIndex;
+            this.strategies = strategies;
+            this.populationSize = populationSize;
+            this.cfg = cfg;
+            this.epsilon = epsilon;
+            this.exactPayoff = exactPayoff;
+            this.sequentialTest = sequentialTest;
+            this.matchupCache = matchupCache;
+            this.residents = residents;
+            this.cell = cell;
+        }
+
+        @Override
+        public StabilityResult call() throws Exception {
+
+            StabilityResult res = isEvolutionaryStable(xIndex, strategies, populationSize, epsilon, cfg, exactPayoff, sequentialTest, matchupCache, residents);
+
+            if(journal != null) {
+                journal.append(cfg.numStages, cfg.p, populationSize, xIndex, res.stable, res.confidence, res.numRounds);
+            }
+
+            cell.testDone(res.stable, res.numRounds, false);
+
+            return res;
+        }
+    };
+
+
+    private void writeToFile(ResultWriter writer, boolean[][][][] res, int mode, List<Integer> numStages, List<Float> p, List<Integer> populationSize) {
+        writeCells(writer, mode, numStages, p, populationSize, res[0][0][0].length, (w, i, j, k, s) -> w.append(res[i][j][k][s] ? "1 " : "0 "));
+    }
+
+    private interface CellFormat {
+        void format(ResultWriter writer, int i, int j, int k, int s);
+    }
+
+    private void writeCells(ResultWriter writer, int mode, List<Integer> numStages, List<Float> p, List<Integer> populationSize, int numStrategies, CellFormat cellFormat) {
+
+        // numStages | winProbability | populationSize | strategy
+
+        // variable populaiton size
+        if(mode == 0) {
+
+            for(int i=0; i<numStages.size(); ++i) {
+                for(int j=0; j<p.size(); ++j) {
+                    writer.append("numberOfStages = ").append(numStages.get(i)).append(", winProbability = ").appendFixed(p.get(j), 6).newLine();
+                    for(int k=0; k<populationSize.size(); ++k) {
+                        for(int s=0; s<numStrategies; ++s) {
+                            cellFormat.format(writer, i, j, k, s);
+                        }
+                        writer.newLine();
+                    }
+                    writer.newLine();
+                }
+                writer.newLine();
+            }
+
+        }
+
+        // variable number of stages
+        if(mode == 1) {
+
+            for(int k=0; k<populationSize.size(); ++k) {
+                for(int j=0; j<p.size(); ++j) {
+                    writer.append("populationSize = ").append(populationSize.get(k)).append(", winProbability = ").appendFixed(p.get(j), 6).newLine();
+                    for(int i=0; i<numStages.size(); ++i) {
+                        for(int s=0; s<numStrategies; ++s) {
+                            cellFormat.format(writer, i, j, k, s);
+                        }
+                        writer.newLine();
+                    }
+                    writer.newLine();
+                }
+                writer.newLine();
+            }
+
+        }
+
+        if(mode == 2) {
+
+            for(int k=0; k<populationSize.size(); ++k) {
+                for(int i=0; i<numStages.size(); ++i) {
+                    writer.append("populationSize = ").append(populationSize.get(k)).append(", numberOfStages = ").append(numStages.get(i)).newLine();
+                    for(int j=0; j<p.size(); ++j) {
+                        for(int s=0; s<numStrategies; ++s) {
+                            cellFormat.format(writer, i, j, k, s);
+                        }
+                        writer.newLine();
+                    }
+                    writer.newLine();
+                }
+                writer.newLine();
+            }
+
+        }
+
+
+    }
+
+    // endregion
+
+    // region payoff function
+
+    public void generatePayoffFunction(Document doc) throws IOException, ExecutionException, InterruptedException {
+
+        // region variable declarations
+
+        float epsilon;
+        Game.GameCfg cfg = new Game.GameCfg();
+        Game game;
+        int populationSize;
+        List<Float> strategyStartValues;
+        List<Float> strategyEndValues;
+        List<Strategy> strategySet;
+        ResultWriter writer;
+        String outputProfiles;
+        boolean lazyPayoffs;
+
+        PayoffFunction payoffFunction;
+
+        // endregion
+
+        // region load parameters from config file
+
+        if(loadFloatRange(doc, "epsilon") != null) {
+            epsilon = loadFloatRange(doc, "epsilon").get(0);}
+        else { throw new ExceptionInInitializerError("epsilon not found in config"); }
+
+        if(loadIntRange(doc, "numStages") != null) {
+            cfg.numStages = loadIntRange(doc, "numStages").get(0);}
+        else { throw new ExceptionInInitializerError("numStages not found in config"); }
+
+        if(loadIntRange(doc, "numRounds") != null) {
+            cfg.numRounds = loadIntRange(doc, "numRounds").get(0);}
+        else { throw new ExceptionInInitializerError("numRounds not found in config"); }
+
+        if(loadFloatRange(doc, "winProbability") != null) {
+            cfg.p = loadFloatRange(doc, "winProbability").get(0);}
+        else { throw new ExceptionInInitializerError("winProbability not found in config"); }
+
+        if(loadFloatRange(doc, "startMoney") != null) {
+            cfg.M = loadFloatRange(doc, "startMoney").get(0);}
+        else { throw new ExceptionInInitializerError("startMoney not found in config"); }
+
+        if(loadIntRange(doc, "populationSize") != null) {
+            populationSize = loadIntRange(doc, "populationSize").get(0); }
+        else { throw new ExceptionInInitializerError("populationSize not found in config"); }
+
+        strategyStartValues = loadStakeFractions(doc, "strategyStartValues");
+
+        strategyEndValues = loadStakeFractions(doc, "strategyEndValues");
+
+        strategySet = new ArrayList<>();
+        for(int i=0; i<strategyStartValues.size(); ++i) {
+            for(int j=0; j<strategyEndValues.size(); j++){
+
+                float slope = (strategyEndValues.get(j) - strategyStartValues.get(i));
+                float offset = strategyStartValues.get(i);
+                System.out.printf("slope = %f | offset = %f\n", slope, offset);
+                strategySet.add(new TimeLinearStrategy(slope, offset));
+            }
+        }
+
+
+
+        writer = ResultWriter.open(loadString(doc, "outputFileName"));
+        outputProfiles = loadOutputProfiles(doc);
+        lazyPayoffs = loadLazyPayoffs(doc);
+
+        cfg.seed = cellSeed(loadSeed(doc), cfg.numStages, cfg.p, populationSize);
+        cfg.vectorKernel = loadVectorKernel(doc);
+        cfg.commonRandomNumbers = loadCommonRandomNumbers(doc);
+
+        // endregion
+
+        Progress progress = new Progress("payoff function", System.out, progressInterval);
+        try {
+
+            // a payoff table computed by an earlier run is mapped instead of computed again
+            String tableFileName = loadString(doc, "payoffTableFileName");
+            if(tableFileName != null && new File(tableFileName).exists()) {
+                payoffFunction = new PayoffFunction(PayoffTableFile.map(tableFileName), epsilon, scheduler);
+                if(!payoffFunction.matches(populationSize, strategySet, cfg, loadExactBackend(doc))) {
+                    throw new ExceptionInInitializerError("payoff table " + tableFileName + " does not match config");
+                }
+                System.out.printf("payoff table loaded from %s\n", tableFileName);
+            }
+            else if(lazyPayoffs) {
+                if(tableFileName != null) {
+                    throw new ExceptionInInitializerError("payoffTableFileName needs eager payoffs in config");
+                }
+                payoffFunction = new PayoffFunction(populationSize, strategySet, cfg, epsilon, loadExactBackend(doc), scheduler);
+                payoffFunction.computeLazily(loadPayoffCacheSize(doc), maxTasksInFlight);
+            }
+            else {
+                payoffFunction = new PayoffFunction(populationSize, strategySet, cfg, epsilon, loadExactBackend(doc), scheduler);
+                payoffFunction.compute(maxTasksInFlight);
+                if(tableFileName != null) {
+                    payoffFunction.save(tableFileName);
+                }
+            }
+
+            String nashSearch = loadNashSearch(doc);
+            if(!nashSearch.equals("none")) {
+                payoffFunction.findNashEquilibria(nashSearch.equals("symmetric"));
+            }
+
+            // mixed equilibria of the population, exact from a table and sampled from lazy payoffs unless set otherwise
+            MixedEquilibriumSolver.Dynamics dynamics = loadMixedEquilibrium(doc);
+            if(dynamics != null) {
+                int numSamples = loadString(doc, "mixedSamples") != null ? Integer.parseInt(loadString(doc, "mixedSamples").trim()) : payoffFunction.isLazy() ? 1000 : 0;
+                if(numSamples < 0) {
+                    throw new ExceptionInInitializerError("invalid mixedSamples in config");
+                }
+                int maxIterations = loadString(doc, "mixedIterations") != null ? Integer.parseInt(loadString(doc, "mixedIterations").trim()) : 10000;
+                if(maxIterations < 0) {
+                    throw new ExceptionInInitializerError("invalid mixedIterations in config");
+                }
+                float tolerance = loadString(doc, "mixedTolerance") != null ? Float.parseFloat(loadString(doc, "mixedTolerance").trim()) : epsilon;
+                if(!(tolerance >= 0)) {
+                    throw new ExceptionInInitializerError("invalid mixedTolerance in config");
+                }
+                new MixedEquilibriumSolver(payoffFunction, dynamics, maxIterations, tolerance, numSamples, scheduler, maxTasksInFlight).solve();
+            }
+        }
+        finally {
+            progress.close();
+        }
+
+        // the strategy texts are the same on every line
+        String[] strategyTexts = new String[strategySet.size()];
+        for(int i = 0; i < strategyTexts.length; ++i) {
+            strategyTexts[i] = strategySet.get(i).toText();
+        }
+        float[] payoffs = new float[populationSize];
+
+        int[] strategyProfile = new int[populationSize];
+        for(int i=0; i<populationSize; ++i) {
+            strategyProfile[i] = 0;
+        }
+
+        if(outputProfiles.equals("sorted")) {
+            // every multiset once, the other orders of a profile only permute its payoffs
+            do {
+                writeProfile(writer, strategyTexts, strategyProfile, payoffFunction, payoffs);
+            } while(nextStrategyProfile(strategyProfile, strategySet.size()));
+        }
+        else if(outputProfiles.equals("all")) {
+            boolean done = false;
+            while(!done) {
+
+                writeProfile(writer, strategyTexts, strategyProfile, payoffFunction, payoffs);
+
+                int i = populationSize - 1;
+                while(true) {
+                    // check if current digit can be incremented
+                    if (strategyProfile[i] < strategySet.size() - 1) {
+
+                        // increment current digit
+                        strategyProfile[i]++;
+
+
+                        // reset previous digits to 0
+                        for (int j = i + 1; j < strategyProfile.length; ++j) {
+                            strategyProfile[j] = 0;
+                        }
+
+                        break;
+
+                    }
+
+                    // check if i is at the most significant digit
+                    if (i == 0) {
+                        done = true;
+                        break;
+                    } else {
+                        // move to next more significant digit
+                        i--;
+                    }
+                }
+
+            }
+        }
+
+        writer.close();
+
+    }
+
+    private void writeProfile(ResultWriter writer, String[] strategyTexts, int[] strategyProfile, PayoffFunction payoffFunction, float[] payoffs) {
+
+        payoffFunction.getPayoffs(strategyProfile, payoffs);
+
+        writer.append('[');
+        for (int j = 0; j < strategyProfile.length - 1; ++j) {
+            writer.append(strategyTexts[strategyProfile[j]]).append(", ");
+        }
+        writer.append(strategyTexts[strategyProfile[strategyProfile.length - 1]]).append("] \t\t\t -> \t [");
+
+        for (int j = 0; j < payoffs.length - 1; ++j) {
+            writer.appendFixed(payoffs[j], 6).append(", ");
+        }
+        writer.appendFixed(payoffs[payoffs.length - 1], 6).append(']').newLine();
+    }
+
+    private boolean nextStrategyProfile(int[] strategyProfile, int numStrategies) {
+
+
+        int i = strategyProfile.length-1;
+        int resetDigit;
+        while(true) {
+
+            // check if current digit can be incremented
+            if(strategyProfile[i] < numStrategies-1) {
+
+                // increment current digit
+                strategyProfile[i]++;
+
+                // set resetDigit
+                resetDigit = strategyProfile[i];
+
+                // reset previous digits to resetDigit
+                for(int j = i+1; j < strategyProfile.length; ++j) {
+                    strategyProfile[j] = resetDigit;
+                }
+
+                // return true
+                return true;
+
+            }
+
+            // check if i is at the most significant digit
+            if(i == 0) {
+                return false;
+            }
+            else {
+                // move to next more significant digit
+                i--;
+            }
+
+        }
+
+    }
+
+    // endregion
+
+
+
+    // region seeding
+
+    /**
+     * seed of the grid point (numStages, p, populationSize). it only depends on the parameter values, not on the
+     * position of the grid point in the sweep.
+     */
+    private static long cellSeed(long seed, int numStages, float p, int populationSize) {
+        return SplitMix64.derive(seed, numStages, Float.floatToIntBits(p), populationSize);
+    }
+
+    // endregion
+
+    // region loaders
+
+    private List<Integer> loadIntRange(Document doc, String s) {
+
+        NodeList list = doc.getElementsByTagName(s);
+
+        // check if element was found
+        if(list.getLength() != 0) {
+
+            String[] content = list.item(0).getTextContent().split(":");
+            ArrayList<Integer> resList = new ArrayList<>();
+
+            if(content.length == 1) {
+                // it's a single value
+                resList.add(Integer.parseInt(content[0]));
+            }
+            else {
+                // it's a range of values
+                int start = Integer.parseInt(content[0]);
+                int step = Integer.parseInt(content[1]);
+                int end = Integer.parseInt(content[2]);
+
+
+                for(int x = start; x <= end; x += step) {
+                    resList.add(x);
+                }
+
+            }
+            return resList;
+        }
+
+        return null;
+    }
+
+    private List<Float> loadFloatRange(Document doc, String s) {
+
+        NodeList list = doc.getElementsByTagName(s);
+
+        // check if element was found
+        if(list.getLength() != 0) {
+
+            String[] content = list.item(0).getTextContent().split(":");
+            ArrayList<Float> resList = new ArrayList<>();
+
+            if(content.length == 1) {
+                // it's a single value
+                resList.add(Float.parseFloat(content[0]));
+            }
+            else {
+                // it's a range of values
+                float start = Float.parseFloat(content[0]);
+                float step = Float.parseFloat(content[1]);
+                float end = Float.parseFloat(content[2]);
+
+
+                for(float x = start; x <= end; x += step) {
+                    resList.add(x);
+                }
+
+            }
+            return resList;
+        }
+
+        return null;
+    }
+
+    /**
+     * a range of stake fractions. ranges are written up to a bit more than 1 so rounding does not drop 1, the
+     * strategies clamp their stakes to [0, 1].
+     */
+    private List<Float> loadStakeFractions(Document doc, String s) {
+
+        List<Float> res = loadFloatRange(doc, s);
+        if(res == null) {
+            throw new ExceptionInInitializerError(s + " not found in config");
+        }
+
+        for(float x : res) {
+            if(!(x >= 0 && x <= MAX_STAKE_FRACTION)) {
+                throw new ExceptionInInitializerError("invalid " + s + " in config");
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * fixed length simulations unless stoppingRule is adaptive. games are simulated in batches of batchSize rounds.
+     * in adaptive mode they stop as soon as the payoff is clear with the required confidence, and numRounds only
+     * caps their length.
+     */
+    /**
+     * the stopping rule of the stability tests. confidence is required at each look after a batch, not over all looks
+     * of a test (see SequentialTest).
+     */
+    private SequentialTest loadSequentialTest(Document doc) {
+
+        float confidence = 0.99f;
+        if(loadFloatRange(doc, "confidence") != null) {
+            confidence = loadFloatRange(doc, "confidence").get(0); }
+
+        // a confidence of 0 or 1 has no finite z threshold
+        if(!(confidence > 0 && confidence < 1)) {
+            throw new ExceptionInInitializerError("invalid confidence in config");
+        }
+
+        int batchSize = 500;
+        if(loadIntRange(doc, "batchSize") != null) {
+            batchSize = loadIntRange(doc, "batchSize").get(0); }
+
+        // an empty batch never gets a test closer to its rounds
+        if(batchSize < 1) {
+            throw new ExceptionInInitializerError("invalid batchSize in config");
+        }
+
+        String stoppingRule = loadString(doc, "stoppingRule");
+
+        if(stoppingRule == null || stoppingRule.equals("fixed")) {
+            return new SequentialTest(batchSize, confidence, false);
+        }
+        else if(stoppingRule.equals("adaptive")) {
+            return new SequentialTest(batchSize, confidence, true);
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid stoppingRule in config");
+        }
+    }
+
+    /**
+     * scalar (default) or vector. the vector kernel rolls its independent dice from a counter based hash with p
+     * rounded to 24 bits (see VectorRoundKernel), so with the same seed its results differ from those of the scalar
+     * kernel, within the same sampling error. only common random numbers give both kernels the same dice. the
+     * kernel is part of the run key, so a journal of one is never resumed with the other.
+     */
+    private boolean loadVectorKernel(Document doc) {
+
+        String kernel = loadString(doc, "kernel");
+
+        if(kernel == null || kernel.equals("scalar")) {
+            return false;
+        }
+        else if(kernel.equals("vector")) {
+            return true;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid kernel in config");
+        }
+    }
+
+    private boolean loadCommonRandomNumbers(Document doc) {
+
+        String randomNumbers = loadString(doc, "randomNumbers");
+
+        if(randomNumbers == null || randomNumbers.equals("independent")) {
+            return false;
+        }
+        else if(randomNumbers.equals("common")) {
+            return true;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid randomNumbers in config");
+        }
+    }
+
+    private boolean loadAggregatedResidents(Document doc) {
+
+        String residents = loadString(doc, "residents");
+
+        if(residents == null || residents.equals("simulated")) {
+            return false;
+        }
+        else if(residents.equals("aggregated")) {
+            return true;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid residents in config");
+        }
+    }
+
+    private Journal openJournal(String fileName, long seed, long runKey) {
+        try {
+            return new Journal(fileName, seed, runKey);
+        } catch (IOException e) {
+            throw journalError(fileName, e);
+        }
+    }
+
+    /**
+     * config error for a journal that can not be read, keeping the reason.
+     */
+    private static ExceptionInInitializerError journalError(String fileName, IOException e) {
+        ExceptionInInitializerError error = new ExceptionInInitializerError("journal " + fileName + " can not be opened: " + e.getMessage());
+        // the constructor leaves no room for a cause
+        error.addSuppressed(e);
+        return error;
+    }
+
+    /**
+     * all, sorted or none. a lazy payoff function that is too large to be computed in full can not be written out
+     * either.
+     */
+    private String loadOutputProfiles(Document doc) {
+
+        String profiles = loadString(doc, "outputProfiles");
+
+        if(profiles == null) {
+            return "all";
+        }
+        else if(profiles.equals("all") || profiles.equals("sorted") || profiles.equals("none")) {
+            return profiles;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid outputProfiles in config");
+        }
+    }
+
+    private boolean loadLazyPayoffs(Document doc) {
+
+        String payoffs = loadString(doc, "payoffs");
+
+        if(payoffs == null || payoffs.equals("eager")) {
+            return false;
+        }
+        else if(payoffs.equals("lazy")) {
+            return true;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid payoffs in config");
+        }
+    }
+
+    /**
+     * number of profiles a lazy payoff function keeps.
+     */
+    private int loadPayoffCacheSize(Document doc) {
+
+        if(loadString(doc, "payoffCacheSize") != null) {
+            int payoffCacheSize = Integer.parseInt(loadString(doc, "payoffCacheSize").trim());
+            if(payoffCacheSize < 1) {
+                throw new ExceptionInInitializerError("invalid payoffCacheSize in config");
+            }
+            return payoffCacheSize;
+        }
+
+        return 1 << 18;
+    }
+
+    /**
+     * all, symmetric or none.
+     */
+    private String loadNashSearch(Document doc) {
+
+        String search = loadString(doc, "nashSearch");
+
+        if(search == null) {
+            return "all";
+        }
+        else if(search.equals("all") || search.equals("symmetric") || search.equals("none")) {
+            return search;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid nashSearch in config");
+        }
+    }
+
+    /**
+     * the dynamics to search a mixed equilibrium with, null for none.
+     */
+    private MixedEquilibriumSolver.Dynamics loadMixedEquilibrium(Document doc) {
+
+        String dynamics = loadString(doc, "mixedEquilibrium");
+
+        if(dynamics == null || dynamics.equals("none")) {
+            return null;
+        }
+        else if(dynamics.equals("replicator")) {
+            return MixedEquilibriumSolver.Dynamics.REPLICATOR;
+        }
+        else if(dynamics.equals("fictitiousPlay")) {
+            return MixedEquilibriumSolver.Dynamics.FICTITIOUS_PLAY;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid mixedEquilibrium in config");
+        }
+    }
+
+    private boolean loadExactBackend(Document doc) {
+
+        String backend = loadString(doc, "backend");
+
+        if(backend == null || backend.equals("monteCarlo")) {
+            return false;
+        }
+        else if(backend.equals("exact")) {
+            return true;
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid backend in config");
+        }
+    }
+
+    private long loadSeed(Document doc) {
+        return loadSeed(doc, null);
+    }
+
+    /**
+     * the master seed. without one in the config, a run that is resumed from journalFileName takes the seed it was
+     * started with.
+     */
+    private long loadSeed(Document doc, String journalFileName) {
+
+        if(loadString(doc, "seed") != null) {
+            return Long.parseLong(loadString(doc, "seed").trim());
+        }
+
+        if(journalFileName != null) {
+            Long journaled;
+            try {
+                journaled = Journal.readSeed(journalFileName);
+            } catch (IOException e) {
+                throw journalError(journalFileName, e);
+            }
+            if(journaled != null) {
+                System.out.printf("seed = %d from journal\n", journaled);
+                return journaled;
+            }
+        }
+
+        // no master seed given. pick one and report it so the run can be repeated
+        long seed = SplitMix64.mix64(System.nanoTime());
+        System.out.printf("seed = %d\n", seed);
+        return seed;
+    }
+
+    private int loadParallelism(Document doc) {
+
+        if(loadString(doc, "parallelism") != null) {
+            int parallelism = Integer.parseInt(loadString(doc, "parallelism").trim());
+            if(parallelism < 1) {
+                throw new ExceptionInInitializerError("invalid parallelism in config");
+            }
+            return parallelism;
+        }
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * seconds between two progress reports, 0 for none.
+     */
+    private long loadProgressInterval(Document doc) {
+
+        if(loadString(doc, "progressInterval") != null) {
+            float seconds = Float.parseFloat(loadString(doc, "progressInterval").trim());
+            if(!(seconds >= 0)) {
+                throw new ExceptionInInitializerError("invalid progressInterval in config");
+            }
+            return (long) (seconds * 1000);
+        }
+
+        return 5000;
+    }
+
+    /**
+     * top level tasks queued or running at a time. a few per worker keep all of them busy, more only hold memory.
+     */
+    private int loadMaxTasksInFlight(Document doc, int parallelism) {
+
+        if(loadString(doc, "maxTasksInFlight") != null) {
+            int maxTasksInFlight = Integer.parseInt(loadString(doc, "maxTasksInFlight").trim());
+            if(maxTasksInFlight < 1) {
+                throw new ExceptionInInitializerError("invalid maxTasksInFlight in config");
+            }
+            return maxTasksInFlight;
+        }
+
+        return 4 * parallelism;
+    }
+
+    /**
+     * identifies everything the result of a stability test depends on apart from its grid cell.
+     */
+    private long runKey(Document doc, long seed, Game.GameCfg cfg, float epsilon, boolean exact, boolean aggregatedResidents, List<Strategy> strategies) {
+
+        long res = SplitMix64.derive(seed, cfg.numRounds, Float.floatToIntBits(cfg.M), Float.floatToIntBits(epsilon), exact ? 1 : 0, cfg.vectorKernel ? 1 : 0, cfg.commonRandomNumbers ? 1 : 0, aggregatedResidents ? 1 : 0);
+
+        for(String tag : new String[] { "confidence", "batchSize", "stoppingRule" }) {
+            res = SplitMix64.derive(res, Objects.hashCode(loadString(doc, tag)));
+        }
+        for(Strategy strategy : strategies) {
+            res = SplitMix64.derive(res, strategy.toText().hashCode());
+        }
+
+        return res;
+    }
+
+    private String loadString(Document doc, String s) {
+
+        NodeList list = doc.getElementsByTagName(s);
+
+        if(list.getLength() != 0) {
+            return list.item(0).getTextContent();
+        }
+
+        return null;
+    }
+
+    // endregion
+
+    // region constructors
+
+    public Simulation(String cfg) {
+        this(cfg, null, 0);
+    }
+
+    /**
+     * runs only the cells of shard if it is given, or merges the shard files of numMergedShards shards if that is
+     * not 0. both only apply to the evolutionary stability test.
+     */
+    public Simulation(String cfg, Shard shard, int numMergedShards) {
+
+        this.shard = shard;
+        this.numMergedShards = numMergedShards;
+
+        try {
+            load(cfg);
+            run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            failed = true;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * a simulation of cfg with its scheduler started that has not run yet. run() runs it, as often as needed, and
+     * close() shuts the scheduler down. benchmarks use this to keep the pool out of the measurement.
+     */
+    static Simulation loaded(String cfg) throws Exception {
+
+        Simulation res = new Simulation();
+        res.load(cfg);
+
+        return res;
+    }
+
+    private Simulation() {
+    }
+
+    private void load(String cfg) throws Exception {
+
+        File inputFile = new File(cfg);
+        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        doc = dBuilder.parse(inputFile);
+        doc.getDocumentElement().normalize();
+
+        // one pool for all computations of this run
+        scheduler = new Scheduler(loadParallelism(doc));
+        progressInterval = loadProgressInterval(doc);
+        maxTasksInFlight = loadMaxTasksInFlight(doc, scheduler.getParallelism());
+    }
+
+    void run() throws IOException, ExecutionException, InterruptedException {
+
+        String mode = doc.getElementsByTagName("mode").item(0).getTextContent();
+
+        if(mode.equals("evolutionaryStabilityTest")) {
+            evolutionaryStabilityTest(doc);
+        }
+        else if(shard != null || numMergedShards > 0) {
+            throw new ExceptionInInitializerError("shards only apply to evolutionaryStabilityTest");
+        }
+        else if(mode.equals("payoffFunction")) {
+            generatePayoffFunction(doc);
+        }
+        else {
+            throw new ExceptionInInitializerError("invalid mode in Game constructor");
+        }
+    }
+
+    void close() {
+        if(scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * true if loading or running the simulation threw.
+     */
+    boolean failed() {
+        return failed;
+    }
+
+    // endregion
+
+    private Document doc;
+    private Scheduler scheduler;
+    private Journal journal;
+    // milliseconds between two progress reports
+    private long progressInterval;
+    // top level tasks queued or running at a time
+    private int maxTasksInFlight;
+    // the part of the grid this run computes, null for all of it
+    private Shard shard;
+    // number of shards whose results are merged, 0 for none
+    private int numMergedShards;
+    private boolean failed;
+
+    // a helper only pays off if it can take over a few invaders
+    private static final int MIN_INVADERS_PER_HELPER = 4;
+    // the largest stake fraction accepted in a config, the end of a range like 0.0:0.25:1.001
+    private static final float MAX_STAKE_FRACTION = 1.001f;
+
+    /**
+     *      Simulation [config.xml]                  the whole grid
+     *      Simulation [config.xml] --shard i/N      only the cells of shard i of N, into its shard file
+     *      Simulation [config.xml] --merge N        the output of the shard files of N shards
+     *      Simulation [config.xml] --shards N       runs N shards as local processes, then merges them
+     */
+    public static void main(String [ ] args) throws IOException, InterruptedException {
+
+        String cfg = "config.xml";
+        Shard shard = null;
+        int numMergedShards = 0;
+        int numLocalShards = 0;
+
+        for(int i = 0; i < args.length; ++i) {
+            if(args[i].startsWith("--") && i + 1 == args.length) {
+                throw new IllegalArgumentException(args[i] + " needs a value");
+            }
+            switch(args[i]) {
+                case "--shard": shard = Shard.parse(args[++i]); break;
+                case "--merge": numMergedShards = Integer.parseInt(args[++i]); break;
+                case "--shards": numLocalShards = Integer.parseInt(args[++i]); break;
+                default: cfg = args[i];
+            }
+        }
+
+        if(numLocalShards > 0) {
+            if(!ShardRunner.run(cfg, numLocalShards)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        if(new Simulation(cfg, shard, numMergedShards).failed()) {
+            System.exit(1);
+        }
+
+    }
+}
@@ -0,0 +1,78 @@
+package sequentialinvestmentgame;
+
+/**
+ * small, reseedable SplitMix64 generator. unlike java.util.Random it has no atomic seed update, and seeds for
+ * independent streams are derived from a master seed with derive(), so a simulation can be reproduced no matter
+ * which thread runs which part of it.
+ */
+public class SplitMix64 {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+
+    // region random numbers
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * uniform double in [0, 1).
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * uniform int in [0, bound), bound has to be positive.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    // endregion
+
+
+    // region seeding
+
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    /**
+     * derives the seed of an independent stream identified by keys from seed.
+     */
+    public static long derive(long seed, long... keys) {
+        long res = mix64(seed);
+        for(long key : keys) {
+            res = mix64(res + GOLDEN_GAMMA + mix64(key));
+        }
+        return res;
+    }
+
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private long state;
+
+    // endregion
+
+
+    // region constructors
+
+    public SplitMix64(long seed) {
+        state = seed;
+    }
+
+    // endregion
+
+}
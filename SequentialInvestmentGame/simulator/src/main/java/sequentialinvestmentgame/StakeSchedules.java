@@ -0,0 +1,46 @@
+package sequentialinvestmentgame;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * cache of compiled stake schedules of state independent strategies. a schedule is computed once per strategy and
+ * number of stages and shared by all games and threads of a simulation. every simulation has a cache of its own in
+ * its game config, so the schedules go away with it.
+ */
+public class StakeSchedules {
+
+    /**
+     * the schedule of strategy for games with numStages stages, null if the strategy is not state independent.
+     */
+    public float[] get(Strategy strategy, int numStages) {
+
+        if(!strategy.isStateIndependent()) {
+            return null;
+        }
+
+        if(numStages < 1) {
+            throw new IllegalArgumentException("invalid number of stages " + numStages);
+        }
+
+        return schedules.computeIfAbsent(numStages, n -> new ConcurrentHashMap<>())
+                .computeIfAbsent(strategy, s -> compile(s, numStages));
+    }
+
+    private static float[] compile(Strategy strategy, int numStages) {
+
+        // a state independent strategy ignores the game state, so it is left undefined
+        float[] res = new float[numStages];
+        for(int stage = 1; stage <= numStages; ++stage) {
+            res[stage - 1] = strategy.eval(Float.NaN, numStages, stage, 0, Float.NaN);
+            if(!(res[stage - 1] >= 0 && res[stage - 1] <= 1)) {
+                throw new IllegalArgumentException("strategy " + strategy.toText() + " stakes " + res[stage - 1] + " in stage " + stage);
+            }
+        }
+
+        return res;
+    }
+
+    private final Map<Integer, Map<Strategy, float[]>> schedules = new ConcurrentHashMap<>();
+
+}
@@ -0,0 +1,17 @@
+package sequentialinvestmentgame;
+
+public interface Strategy {
+
+    float eval(float winProbability, int numStages, int currentStage, int numPlayers, float currentMoney);
+
+    String toText();
+
+    /**
+     * true if eval() only depends on numStages and currentStage. the stake fraction of such a strategy can be
+     * tabulated per number of stages (StakeSchedules), and its terminal wealth follows exactly from the stages it won.
+     */
+    default boolean isStateIndependent() {
+        return false;
+    }
+
+}
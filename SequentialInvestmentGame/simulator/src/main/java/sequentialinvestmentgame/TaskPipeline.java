@@ -0,0 +1,105 @@
+package sequentialinvestmentgame;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * bounded submission of top level tasks, with the results handed back in the order the tasks finish.
+ *
+ * the producer generates its tasks one at a time and submits each together with a consumer of its result. once
+ * maxInFlight tasks are queued or running, submit() waits for the next one to finish before it submits another, so
+ * only a window of tasks, and whatever they hold, is alive at any time, no matter how many are generated. consumers
+ * run on the producer's thread, one at a time, so they can write into plain arrays.
+ *
+ * the first task that fails is thrown by submit() or drain() as an ExecutionException.
+ */
+public class TaskPipeline {
+
+
+    // region tasks
+
+    public <T> void submit(Callable<T> task, Consumer<T> consumer) throws ExecutionException, InterruptedException {
+
+        // whatever has finished in the meantime is consumed right away, the rest only when the window is full
+        for(Finished<?> finished = done.poll(); finished != null; finished = done.poll()) {
+            consume(finished);
+        }
+        while(numInFlight >= maxInFlight) {
+            consume(done.take());
+        }
+
+        Finished<T> finished = new Finished<>(consumer);
+        // the queue hands the result over to the producer's thread
+        scheduler.submit(() -> {
+            try {
+                finished.result = task.call();
+            } catch (Throwable t) {
+                finished.failure = t;
+            }
+            return null;
+        }, () -> done.add(finished));
+        numInFlight++;
+    }
+
+    /**
+     * waits for all submitted tasks and consumes their results.
+     */
+    public void drain() throws ExecutionException, InterruptedException {
+        while(numInFlight > 0) {
+            consume(done.take());
+        }
+    }
+
+    private <T> void consume(Finished<T> finished) throws ExecutionException {
+
+        numInFlight--;
+
+        if(finished.failure != null) {
+            throw new ExecutionException(finished.failure);
+        }
+        finished.consumer.accept(finished.result);
+    }
+
+    private static class Finished<T> {
+
+        final Consumer<T> consumer;
+        T result;
+        Throwable failure;
+
+        Finished(Consumer<T> consumer) {
+            this.consumer = consumer;
+        }
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final Scheduler scheduler;
+    private final int maxInFlight;
+    private final BlockingQueue<Finished<?>> done;
+    private int numInFlight;
+
+    // endregion
+
+
+    // region constructors
+
+    public TaskPipeline(Scheduler scheduler, int maxInFlight) {
+
+        if(maxInFlight < 1) {
+            throw new IllegalArgumentException("invalid maxInFlight " + maxInFlight);
+        }
+
+        this.scheduler = scheduler;
+        this.maxInFlight = maxInFlight;
+        this.done = new LinkedBlockingQueue<>();
+    }
+
+    // endregion
+
+}
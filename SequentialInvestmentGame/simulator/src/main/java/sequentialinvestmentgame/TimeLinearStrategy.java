@@ -1,3 +1,5 @@
+package sequentialinvestmentgame;
+
 public class TimeLinearStrategy implements Strategy {
 
     TimeLinearStrategy(float a, float b) {
@@ -23,5 +25,14 @@ public class TimeLinearStrategy implements Strategy {
 
     }
 
+    @Override
+    public boolean isStateIndependent() {
+        return true;
+    }
+
+    public float getA() { return a; }
+
+    public float getB() { return b; }
+
     private float a, b;
 }
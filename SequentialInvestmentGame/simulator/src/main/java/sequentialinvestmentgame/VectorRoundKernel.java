@@ -0,0 +1,107 @@
+package sequentialinvestmentgame;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * round kernel on the java vector api. every lane holds one round of one player, so a vector advances as many
+ * rounds as it has lanes through the same stage with the stake fraction broadcast to all lanes.
+ *
+ * the dice are a counter based generator evaluated in the lanes: draw d of the block hashes to
+ * fmix32(d * golden + key) and wins if its upper 24 bits are below p * 2^24. every (player, round, stage) of the
+ * block has its own counter, so the dice do not depend on the vector length.
+ *
+ * these are not the dice of the scalar path, which rolls BitDice with p to full float precision. with independent
+ * dice a vector run is statistically equivalent to a scalar run with the same seed, but not equal to it, and p is
+ * rounded to a multiple of 2^-24. with common random numbers both paths roll the same CommonDice.
+ */
+public class VectorRoundKernel implements RoundKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+
+    @Override
+    public void playBlock(float[][] schedules, int numPlayers, int numStages, float p, float startMoney, long seed, float[] money, int numRounds) {
+
+        int lanes = FLOATS.length();
+        int threshold = CommonDice.threshold(p);
+        int key = (int) (seed >>> 32);
+        int counterBase = (int) seed;
+
+        // counter offset of every lane. lanes are rounds, and each round draws numStages times
+        IntVector laneCounters = IntVector.zero(INTS).addIndex(numStages);
+
+        for(int i = 0; i < numPlayers; ++i) {
+
+            float[] schedule = schedules[i];
+
+            for(int r = 0; r < numRounds; r += lanes) {
+
+                FloatVector m = FloatVector.broadcast(FLOATS, startMoney);
+                IntVector counters = laneCounters.add(counterBase + (i * BLOCK_SIZE + r) * numStages);
+
+                for(int stage = 0; stage < numStages; ++stage) {
+
+                    FloatVector stake = m.mul(schedule[stage]);
+                    m = m.sub(stake);
+
+                    VectorMask<Float> win = dice(counters.add(stage), key, threshold).cast(FLOATS);
+                    m = m.add(stake.mul(2.0f), win);
+                }
+
+                m.intoArray(money, i * BLOCK_SIZE + r);
+            }
+        }
+    }
+
+    @Override
+    public void playBlockCommon(float[][] schedules, int numPlayers, int numStages, float p, float startMoney, int[] diceKeys, int firstRound, float[] money, int numRounds) {
+
+        int lanes = FLOATS.length();
+        int threshold = CommonDice.threshold(p);
+
+        // lanes are rounds of the game
+        IntVector laneRounds = IntVector.zero(INTS).addIndex(1).add(firstRound);
+
+        for(int i = 0; i < numPlayers; ++i) {
+
+            float[] schedule = schedules[i];
+
+            for(int r = 0; r < numRounds; r += lanes) {
+
+                FloatVector m = FloatVector.broadcast(FLOATS, startMoney);
+                IntVector rounds = laneRounds.add(r);
+
+                for(int stage = 0; stage < numStages; ++stage) {
+
+                    FloatVector stake = m.mul(schedule[stage]);
+                    m = m.sub(stake);
+
+                    VectorMask<Float> win = dice(rounds, diceKeys[i * numStages + stage], threshold).cast(FLOATS);
+                    m = m.add(stake.mul(2.0f), win);
+                }
+
+                m.intoArray(money, i * BLOCK_SIZE + r);
+            }
+        }
+    }
+
+    /**
+     * the lanewise version of CommonDice.roll().
+     */
+    private static VectorMask<Integer> dice(IntVector counters, int key, int threshold) {
+
+        // murmur3 finalizer, a bijection on ints
+        IntVector h = counters.mul(0x9e3779b9).add(key);
+        h = h.lanewise(VectorOperators.XOR, h.lanewise(VectorOperators.LSHR, 16)).mul(0x85ebca6b);
+        h = h.lanewise(VectorOperators.XOR, h.lanewise(VectorOperators.LSHR, 13)).mul(0xc2b2ae35);
+        h = h.lanewise(VectorOperators.XOR, h.lanewise(VectorOperators.LSHR, 16));
+
+        return h.lanewise(VectorOperators.LSHR, 8).compare(VectorOperators.LT, threshold);
+    }
+
+}
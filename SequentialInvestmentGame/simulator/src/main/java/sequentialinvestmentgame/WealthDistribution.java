@@ -0,0 +1,193 @@
+package sequentialinvestmentgame;
+
+import java.util.Arrays;
+
+/**
+ * discrete distribution of the wealth a single player ends a round with. values are sorted ascending and
+ * distinct, probabilities[i] is the probability of ending with values[i].
+ */
+public class WealthDistribution {
+
+
+    // region exact computation
+
+    /**
+     * computes the exact terminal wealth distribution of a state independent strategy by following every win/loss
+     * path through the stages of its stake schedule with the same float arithmetic as Game. paths ending with equal wealth are merged.
+     * returns null if the strategy depends on its wealth or if more than maxSupport distinct values occur.
+     */
+    public static WealthDistribution exact(Strategy strategy, Game.GameCfg cfg, int maxSupport) {
+
+        if(!strategy.isStateIndependent()) {
+            return null;
+        }
+
+        double pWin = Math.min(Math.max(cfg.p, 0.0), 1.0);
+        float[] schedule = cfg.stakeSchedules.get(strategy, cfg.numStages);
+
+        float[] values = new float[] { cfg.M };
+        double[] probabilities = new double[] { 1.0 };
+        int size = 1;
+
+        for(int stage = 1; stage <= cfg.numStages; ++stage) {
+
+            float fraction = schedule[stage - 1];
+
+            float[] nextValues = new float[2 * size];
+            double[] nextProbabilities = new double[2 * size];
+            int nextSize = 0;
+
+            for(int i = 0; i < size; ++i) {
+
+                float money = values[i];
+                float stake = money * fraction;
+                money -= stake;
+
+                if(pWin < 1.0) {
+                    nextValues[nextSize] = money;
+                    nextProbabilities[nextSize++] = probabilities[i] * (1.0 - pWin);
+                }
+                if(pWin > 0.0) {
+                    nextValues[nextSize] = money + 2 * stake;
+                    nextProbabilities[nextSize++] = probabilities[i] * pWin;
+                }
+            }
+
+            size = sortAndMerge(nextValues, nextProbabilities, nextSize);
+            if(size > maxSupport) {
+                return null;
+            }
+
+            values = nextValues;
+            probabilities = nextProbabilities;
+        }
+
+        return new WealthDistribution(Arrays.copyOf(values, size), Arrays.copyOf(probabilities, size));
+    }
+
+    /**
+     * empirical distribution of the first n samples, every sample having probability 1/n.
+     */
+    public static WealthDistribution empirical(float[] samples, int n) {
+
+        float[] values = Arrays.copyOf(samples, n);
+        double[] probabilities = new double[n];
+        Arrays.fill(probabilities, 1.0 / n);
+
+        int size = sortAndMerge(values, probabilities, n);
+        return new WealthDistribution(Arrays.copyOf(values, size), Arrays.copyOf(probabilities, size));
+    }
+
+    /**
+     * sorts the first n atoms by value and merges atoms with equal value. returns the number of remaining atoms.
+     */
+    static int sortAndMerge(float[] values, double[] probabilities, int n) {
+
+        // sort (value, index) pairs packed into longs. the float bits are flipped so that signed int order equals
+        // float order
+        long[] keys = new long[n];
+        for(int i = 0; i < n; ++i) {
+            int bits = Float.floatToIntBits(values[i] + 0.0f);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            keys[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        float[] sortedValues = new float[n];
+        double[] sortedProbabilities = new double[n];
+        int size = 0;
+
+        for(int i = 0; i < n; ++i) {
+            int index = (int) keys[i];
+            float value = values[index] + 0.0f;
+            if(size > 0 && sortedValues[size - 1] == value) {
+                sortedProbabilities[size - 1] += probabilities[index];
+            }
+            else {
+                sortedValues[size] = value;
+                sortedProbabilities[size++] = probabilities[index];
+            }
+        }
+
+        System.arraycopy(sortedValues, 0, values, 0, size);
+        System.arraycopy(sortedProbabilities, 0, probabilities, 0, size);
+        return size;
+    }
+
+    // endregion
+
+
+    // region evaluation
+
+    /**
+     * probability that a player ending with wealth v wins against numOpponents players whose wealth follows this
+     * distribution, ties broken uniformly. with a = P(W < v) and b = P(W = v) it is
+     *
+     *      integral over t in [0, 1] of (a + b * t)^numOpponents = ((a + b)^(k+1) - a^(k+1)) / ((k+1) * b)
+     *
+     * for k = numOpponents, and a^k if v is not in the support.
+     */
+    public double winProbability(float v, int numOpponents) {
+
+        int i = Arrays.binarySearch(values, v + 0.0f);
+
+        double a;
+        double b;
+        if(i >= 0) {
+            a = below[i];
+            b = probabilities[i];
+        }
+        else {
+            int insertion = -i - 1;
+            a = insertion < values.length ? below[insertion] : 1.0;
+            b = 0.0;
+        }
+
+        // a very small atom would only cost precision in the closed form
+        if(b < 1e-12) {
+            return Math.pow(a, numOpponents);
+        }
+        return (Math.pow(a + b, numOpponents + 1) - Math.pow(a, numOpponents + 1)) / ((numOpponents + 1) * b);
+    }
+
+    // endregion
+
+
+    // region member fields
+
+    private final float[] values;
+    private final double[] probabilities;
+    // below[i] = P(W < values[i])
+    private final double[] below;
+
+    // endregion
+
+
+    // region getters/setters
+
+    public int size() { return values.length; }
+
+    public float getValue(int i) { return values[i]; }
+
+    public double getProbability(int i) { return probabilities[i]; }
+
+    // endregion
+
+
+    // region constructors
+
+    public WealthDistribution(float[] values, double[] probabilities) {
+        this.values = values;
+        this.probabilities = probabilities;
+
+        below = new double[values.length];
+        double sum = 0.0;
+        for(int i = 0; i < values.length; ++i) {
+            below[i] = sum;
+            sum += probabilities[i];
+        }
+    }
+
+    // endregion
+
+}
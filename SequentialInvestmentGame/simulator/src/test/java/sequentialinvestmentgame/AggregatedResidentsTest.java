@@ -0,0 +1,76 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sequentialinvestmentgame.TestGames.*;
+
+class AggregatedResidentsTest {
+
+    /**
+     * a player tied with k of its opponents wins with probability 1 / (k + 1), averaged over how many tie.
+     */
+    @Test
+    void tiesAreBrokenUniformly() {
+
+        WealthDistribution residents = new WealthDistribution(new float[] { 0, 200 }, new double[] { 0.5, 0.5 });
+
+        // both below, one tie or a tie of three
+        assertEquals(0.25 + 0.5 / 2 + 0.25 / 3, residents.winProbability(200, 2), 1e-12);
+        assertEquals(0.25 / 3, residents.winProbability(0, 2), 1e-12);
+        assertEquals(1.0, residents.winProbability(300, 2), 1e-12);
+        assertEquals(0.25, residents.winProbability(100, 2), 1e-12);
+
+        // a single atom, everybody ties
+        WealthDistribution atom = new WealthDistribution(new float[] { 100 }, new double[] { 1 });
+        for(int k = 1; k < 100; ++k) {
+            assertEquals(1.0 / (k + 1), atom.winProbability(100, k), 1e-12);
+        }
+    }
+
+    @Test
+    void identicalStrategiesTieExactly() {
+
+        Game.GameCfg cfg = cfg(5, 0.6f, 1000);
+        AggregatedResidents residents = new AggregatedResidents(cfg);
+        SequentialTest sequentialTest = new SequentialTest(100, 0.99f, false);
+        Strategy keep = new ConstantStrategy(0);
+
+        for(int populationSize : new int[] { 2, 5, 100 }) {
+            SequentialTest.Estimate res = residents.mutantPayoff(new Game(cfg), sequentialTest, keep, 0, keep, populationSize, 7, new AtomicBoolean(false), 1.0f / populationSize);
+            assertEquals(1.0f / populationSize, res.payoff, 1e-6f);
+        }
+    }
+
+    /**
+     * with p = 1/2 and half stakes the wealths fall on a small grid and ties are frequent. the aggregated payoff still
+     * agrees with the exact one.
+     */
+    @Test
+    void agreesWithExactPayoffUnderTies() {
+
+        Game.GameCfg cfg = cfg(4, 0.5f, 200000);
+        AggregatedResidents residents = new AggregatedResidents(cfg);
+        SequentialTest sequentialTest = new SequentialTest(1000, 0.99f, false);
+        Strategy mutant = new ConstantStrategy(0.5f);
+        Strategy resident = new TimeLinearStrategy(0.0f, 0.5f);
+        int populationSize = 5;
+
+        float exact = new ExactPayoff(cfg).winProbabilities(new Strategy[] { mutant, resident }, new int[] { 1, populationSize - 1 })[0];
+        SequentialTest.Estimate res = residents.mutantPayoff(new Game(cfg), sequentialTest, mutant, 1, resident, populationSize, 7, new AtomicBoolean(false), 1.0f / populationSize);
+
+        assertSampled(exact, cfg.numRounds, res.payoff, "mutant");
+    }
+
+    @Test
+    void residentDistributionIsShared() {
+
+        AggregatedResidents residents = new AggregatedResidents(cfg(5, 0.6f, 1000));
+        Strategy strategy = new TimeLinearStrategy(0.5f, 0.25f);
+
+        assertSame(residents.residentDistribution(3, strategy), residents.residentDistribution(3, strategy));
+    }
+
+}
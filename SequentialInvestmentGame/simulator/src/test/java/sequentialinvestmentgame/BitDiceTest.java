@@ -0,0 +1,104 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sequentialinvestmentgame.TestGames.*;
+
+class BitDiceTest {
+
+    /**
+     * for dyadic p a die wins exactly if the leading bits of its uniform number are below those of p, so the dice
+     * follow from the random words directly.
+     */
+    @Test
+    void dyadicProbabilitiesAreExact() {
+
+        SplitMix64 random = new SplitMix64(11);
+        SplitMix64 reference = new SplitMix64(11);
+        BitDice dice = new BitDice(random);
+
+        dice.setP(0.5f);
+        for(int i = 0; i < 100; ++i) {
+            assertEquals(~reference.nextLong(), dice.next(64));
+        }
+
+        // U < 1/4 if its two leading bits are 0
+        dice.setP(0.25f);
+        for(int i = 0; i < 100; ++i) {
+            long u1 = reference.nextLong();
+            long u2 = reference.nextLong();
+            assertEquals(~u1 & ~u2, dice.next(64));
+        }
+
+        // U < 3/4 unless its two leading bits are 1
+        dice.setP(0.75f);
+        for(int i = 0; i < 100; ++i) {
+            long u1 = reference.nextLong();
+            long u2 = reference.nextLong();
+            assertEquals(~u1 | ~u2, dice.next(64));
+        }
+    }
+
+    @Test
+    void certainDiceDrawNothing() {
+
+        SplitMix64 random = new SplitMix64(5);
+        BitDice dice = new BitDice(random);
+
+        dice.setP(0);
+        assertEquals(0, dice.next(64));
+        assertEquals(0, dice.next(7));
+
+        dice.setP(1);
+        assertEquals(-1L, dice.next(64));
+        assertEquals(0x7f, dice.next(7));
+
+        assertEquals(new SplitMix64(5).nextLong(), random.nextLong());
+    }
+
+    /**
+     * dice taken a few at a time are the same as dice taken 64 at a time.
+     */
+    @Test
+    void partialDrawsContinueTheBuffer() {
+
+        BitDice whole = new BitDice(new SplitMix64(8));
+        BitDice parts = new BitDice(new SplitMix64(8));
+        whole.setP(0.6f);
+        parts.setP(0.6f);
+
+        long[] words = new long[4];
+        for(int i = 0; i < words.length; ++i) {
+            words[i] = whole.next(64);
+        }
+
+        // 20 + 44, then 50 + 14 + 50 + 14 across word boundaries
+        assertEquals(words[0] & ((1L << 20) - 1), parts.next(20));
+        assertEquals(words[0] >>> 20, parts.next(44));
+        assertEquals(words[1] & ((1L << 50) - 1), parts.next(50));
+        assertEquals((words[1] >>> 50) | ((words[2] & ((1L << 50) - 1)) << 14), parts.next(64));
+        assertEquals(words[2] >>> 50, parts.next(14));
+        assertEquals(words[3], parts.next(64));
+    }
+
+    @Test
+    void winRateMatchesProbability() {
+
+        BitDice dice = new BitDice(new SplitMix64(42));
+
+        for(float p : new float[] { 0.6f, 0.1f, 1e-3f, 0.999f }) {
+
+            dice.setP(p);
+            int numWords = 1 << 16;
+            long wins = 0;
+            for(int i = 0; i < numWords; ++i) {
+                wins += Long.bitCount(dice.next(64));
+            }
+
+            double n = 64.0 * numWords;
+            assertSampled(p, n, wins / n, "p = " + p);
+        }
+    }
+
+}
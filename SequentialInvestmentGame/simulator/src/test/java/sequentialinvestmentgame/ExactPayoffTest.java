@@ -0,0 +1,107 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sequentialinvestmentgame.TestGames.*;
+
+class ExactPayoffTest {
+
+    @Test
+    void quadratureIntegratesPolynomialsExactly() {
+
+        for(int n = 1; n <= 40; ++n) {
+
+            double[][] rule = ExactPayoff.gaussLegendre(n);
+            double[] nodes = rule[0];
+            double[] weights = rule[1];
+
+            // integral of x^k over [0, 1] is 1 / (k + 1) for every degree the rule covers
+            for(int k = 0; k <= 2 * n - 1; ++k) {
+                double integral = 0;
+                for(int i = 0; i < n; ++i) {
+                    integral += weights[i] * Math.pow(nodes[i], k);
+                }
+                assertEquals(1.0 / (k + 1), integral, 1e-12, "n = " + n + ", k = " + k);
+            }
+        }
+    }
+
+    @Test
+    void identicalPlayersShareEvenly() {
+
+        ExactPayoff exactPayoff = new ExactPayoff(cfg(10, 0.6f, 100000));
+        Strategy strategy = new TimeLinearStrategy(-0.5f, 0.75f);
+
+        for(int n : new int[] { 2, 3, 7, 100 }) {
+            float[] res = exactPayoff.winProbabilities(new Strategy[] { strategy }, new int[] { n });
+            assertEquals(1.0f / n, res[0], 1e-6f, "n = " + n);
+        }
+    }
+
+    /**
+     * a player who never stakes keeps M and only loses to an all-in player who won every stage, with probability
+     * q = p^numStages. all-in players that all won tie and share.
+     */
+    @Test
+    void tiesAreSharedInClosedForm() {
+
+        int numStages = 3;
+        float p = 0.6f;
+        double q = Math.pow(p, numStages);
+
+        ExactPayoff exactPayoff = new ExactPayoff(cfg(numStages, p, 100000));
+        Strategy keep = new ConstantStrategy(0);
+        Strategy allIn = new ConstantStrategy(1);
+
+        float[] res = exactPayoff.winProbabilities(new Strategy[] { keep, allIn }, new int[] { 1, 1 });
+        assertEquals(1 - q, res[0], 1e-6);
+        assertEquals(q, res[1], 1e-6);
+
+        res = exactPayoff.winProbabilities(new Strategy[] { keep, allIn }, new int[] { 1, 2 });
+        assertEquals((1 - q) * (1 - q), res[0], 1e-6);
+        assertEquals(q * (1 - q) + q * q / 2, res[1], 1e-6);
+
+        // everybody keeps M, a tie of all
+        res = exactPayoff.winProbabilities(new Strategy[] { keep }, new int[] { 4 });
+        assertEquals(0.25f, res[0], 1e-6f);
+    }
+
+    @Test
+    void probabilitiesAddUpToOne() {
+
+        ExactPayoff exactPayoff = new ExactPayoff(cfg(8, 0.5f, 100000));
+        Strategy[] strategies = { new TimeLinearStrategy(0.5f, 0.25f), new TimeLinearStrategy(-0.25f, 0.5f), new ConstantStrategy(0.5f) };
+        int[] sizes = { 2, 5, 3 };
+
+        float[] res = exactPayoff.winProbabilities(strategies, sizes);
+
+        double total = 0;
+        for(int g = 0; g < sizes.length; ++g) {
+            total += sizes[g] * res[g];
+        }
+        assertEquals(1.0, total, 1e-5);
+    }
+
+    /**
+     * the exact payoff of a mutant agrees with simulated games within their sampling error.
+     */
+    @Test
+    void agreesWithSimulation() {
+
+        Game.GameCfg cfg = cfg(5, 0.6f, 100000);
+        Strategy mutant = new TimeLinearStrategy(0.5f, 0.25f);
+        Strategy resident = new TimeLinearStrategy(-0.5f, 1.0f);
+        int populationSize = 4;
+
+        float[] exact = new ExactPayoff(cfg).winProbabilities(new Strategy[] { mutant, resident }, new int[] { 1, populationSize - 1 });
+
+        Game game = new Game(cfg);
+        game.setPopulation(mutant, resident, populationSize);
+        game.setSeed(cfg.seed);
+        float[] simulated = game.winPercentages();
+
+        assertSampled(exact[0], cfg.numRounds, simulated[0], "mutant");
+    }
+
+}
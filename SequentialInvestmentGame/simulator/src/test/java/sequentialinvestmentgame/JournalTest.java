@@ -0,0 +1,118 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    // the layout of the file, see Journal
+    private static final int HEADER_SIZE = 4 + 8 + 8;
+    private static final int RECORD_SIZE = 4 + 4 + 4 + 4 + 1 + 4 + 8;
+
+    private static final long SEED = 1234;
+    private static final long RUN_KEY = 5678;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesFinishedTests() throws IOException {
+
+        String fileName = dir.resolve("journal.bin").toString();
+
+        Journal journal = new Journal(fileName, SEED, RUN_KEY);
+        assertEquals(0, journal.size());
+        journal.append(5, 0.5f, 2, 0, true, 0.99f, 10000);
+        journal.append(5, 0.5f, 2, 1, false, 0.75f, 2000);
+        journal.close();
+
+        journal = new Journal(fileName, SEED, RUN_KEY);
+        assertEquals(2, journal.size());
+        assertNull(journal.get(5, 0.5f, 2, 2));
+        assertNull(journal.get(5, 0.75f, 2, 0));
+
+        Journal.Entry entry = journal.get(5, 0.5f, 2, 1);
+        assertFalse(entry.stable);
+        assertEquals(0.75f, entry.confidence);
+        assertEquals(2000, entry.numRounds);
+
+        // appends after the records read
+        journal.append(5, 0.5f, 2, 2, true, 1.0f, 0);
+        journal.close();
+
+        journal = new Journal(fileName, SEED, RUN_KEY);
+        assertEquals(3, journal.size());
+        assertTrue(journal.get(5, 0.5f, 2, 2).stable);
+        journal.close();
+    }
+
+    @Test
+    void dropsPartiallyWrittenRecord() throws IOException {
+
+        Path file = dir.resolve("journal.bin");
+
+        Journal journal = new Journal(file.toString(), SEED, RUN_KEY);
+        journal.append(3, 0.25f, 5, 4, true, 0.9f, 500);
+        journal.close();
+
+        // a crash in the middle of the next record
+        Files.write(file, new byte[RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+        journal = new Journal(file.toString(), SEED, RUN_KEY);
+        assertEquals(1, journal.size());
+        assertEquals(HEADER_SIZE + RECORD_SIZE, Files.size(file));
+
+        journal.append(3, 0.25f, 5, 5, false, 0.8f, 600);
+        journal.close();
+
+        journal = new Journal(file.toString(), SEED, RUN_KEY);
+        assertEquals(2, journal.size());
+        assertFalse(journal.get(3, 0.25f, 5, 5).stable);
+        journal.close();
+    }
+
+    @Test
+    void keepsRepeatedRecords() throws IOException {
+
+        Path file = dir.resolve("journal.bin");
+
+        Journal journal = new Journal(file.toString(), SEED, RUN_KEY);
+        journal.append(3, 0.25f, 5, 4, true, 0.9f, 500);
+        journal.append(3, 0.25f, 5, 4, true, 0.9f, 500);
+        journal.close();
+
+        journal = new Journal(file.toString(), SEED, RUN_KEY);
+        assertEquals(1, journal.size());
+        journal.close();
+
+        assertEquals(HEADER_SIZE + 2 * RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    void remembersTheSeed() throws IOException {
+
+        String fileName = dir.resolve("journal.bin").toString();
+        assertNull(Journal.readSeed(fileName));
+
+        new Journal(fileName, SEED, RUN_KEY).close();
+        assertEquals(SEED, Journal.readSeed(fileName));
+    }
+
+    @Test
+    void rejectsOtherRuns() throws IOException {
+
+        String fileName = dir.resolve("journal.bin").toString();
+        new Journal(fileName, SEED, RUN_KEY).close();
+
+        assertThrows(ExceptionInInitializerError.class, () -> new Journal(fileName, SEED, RUN_KEY + 1));
+        assertThrows(ExceptionInInitializerError.class, () -> new Journal(fileName, SEED + 1, RUN_KEY));
+    }
+
+}
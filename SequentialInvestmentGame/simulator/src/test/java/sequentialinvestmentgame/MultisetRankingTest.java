@@ -0,0 +1,77 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultisetRankingTest {
+
+    /**
+     * the ranks follow the order in which nextStrategyProfile() enumerates the sorted profiles, without gaps.
+     */
+    @Test
+    void ranksFollowEnumerationOrder() {
+
+        for(int numStrategies : new int[] { 1, 2, 5, 13 }) {
+            for(int size : new int[] { 1, 2, 3, 6 }) {
+
+                MultisetRanking ranking = new MultisetRanking(numStrategies, size);
+                int[] profile = new int[size];
+                int[] unranked = new int[size];
+                long expected = 0;
+
+                do {
+                    assertEquals(expected, ranking.rankSorted(profile), Arrays.toString(profile));
+                    assertEquals(expected, ranking.rank(profile), Arrays.toString(profile));
+
+                    ranking.unrank(expected, unranked);
+                    assertArrayEquals(profile, unranked);
+
+                    expected++;
+                } while(PayoffFunction.nextStrategyProfile(profile, numStrategies));
+
+                assertEquals(expected, ranking.getNumMultisets());
+                assertEquals(expected, ranking.count(numStrategies, size));
+            }
+        }
+    }
+
+    @Test
+    void rankIgnoresOrder() {
+
+        MultisetRanking ranking = new MultisetRanking(81, 4);
+        SplitMix64 random = new SplitMix64(3);
+
+        for(int i = 0; i < 10000; ++i) {
+
+            int[] profile = new int[4];
+            for(int j = 0; j < profile.length; ++j) {
+                profile[j] = (int) Long.remainderUnsigned(random.nextLong(), 81);
+            }
+            int[] sorted = profile.clone();
+            Arrays.sort(sorted);
+
+            assertEquals(ranking.rankSorted(sorted), ranking.rank(profile));
+        }
+    }
+
+    @Test
+    void largeRanksRoundTrip() {
+
+        // far more profiles than fit an int
+        MultisetRanking ranking = new MultisetRanking(1000, 5);
+        assertTrue(ranking.getNumMultisets() > Integer.MAX_VALUE);
+
+        int[] profile = new int[5];
+        for(long rank : new long[] { 0, 1, Integer.MAX_VALUE + 1L, ranking.getNumMultisets() / 2, ranking.getNumMultisets() - 1 }) {
+            ranking.unrank(rank, profile);
+            assertEquals(rank, ranking.rankSorted(profile));
+        }
+
+        ranking.unrank(ranking.getNumMultisets() - 1, profile);
+        assertArrayEquals(new int[] { 999, 999, 999, 999, 999 }, profile);
+    }
+
+}
@@ -0,0 +1,45 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sequentialinvestmentgame.TestGames.*;
+
+class PayoffFunctionTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * a saved payoff table is only reused on the backend it was computed on.
+     */
+    @Test
+    void tableMatchesItsBackend() throws Exception {
+
+        Game.GameCfg cfg = cfg(3, 0.6f, 1000);
+        List<Strategy> strategies = List.of(new ConstantStrategy(0), new ConstantStrategy(0.5f), new TimeLinearStrategy(0.5f, 0.25f));
+
+        Scheduler scheduler = new Scheduler(1);
+        try {
+            for(boolean exact : new boolean[] { false, true }) {
+
+                String fileName = dir.resolve(exact ? "exact.bin" : "monteCarlo.bin").toString();
+                PayoffFunction computed = new PayoffFunction(2, strategies, cfg, 0.01f, exact, scheduler);
+                computed.compute();
+                computed.save(fileName);
+
+                PayoffFunction mapped = new PayoffFunction(PayoffTableFile.map(fileName), 0.01f, scheduler);
+                assertTrue(mapped.matches(2, strategies, cfg, exact));
+                assertFalse(mapped.matches(2, strategies, cfg, !exact));
+                assertFalse(mapped.matches(3, strategies, cfg, exact));
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+}
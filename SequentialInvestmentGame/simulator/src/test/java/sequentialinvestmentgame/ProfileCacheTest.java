@@ -0,0 +1,83 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+
+        ProfileCache cache = new ProfileCache(2);
+        AtomicInteger numEvaluations = new AtomicInteger();
+        ProfileCache.Evaluation evaluation = rank -> {
+            numEvaluations.incrementAndGet();
+            return new float[] { rank };
+        };
+
+        cache.get(1, evaluation);
+        cache.get(2, evaluation);
+        cache.get(1, evaluation);
+        // evicts 2, the one used least recently
+        cache.get(3, evaluation);
+        assertEquals(3, numEvaluations.get());
+
+        cache.get(1, evaluation);
+        cache.get(3, evaluation);
+        assertEquals(3, numEvaluations.get());
+
+        cache.get(2, evaluation);
+        assertEquals(4, numEvaluations.get());
+    }
+
+    /**
+     * a profile that is still being evaluated stays in the cache however many others come after it, so a thread that
+     * needs it waits for the running evaluation instead of starting another one.
+     */
+    @Test
+    void keepsProfilesBeingEvaluated() {
+
+        ProfileCache cache = new ProfileCache(1);
+        AtomicInteger numSlowEvaluations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ProfileCache.Evaluation slow = rank -> {
+            numSlowEvaluations.incrementAndGet();
+            started.countDown();
+            awaitUninterruptibly(release);
+            return new float[] { rank };
+        };
+
+        CompletableFuture<float[]> first = CompletableFuture.supplyAsync(() -> cache.get(1, slow));
+        awaitUninterruptibly(started);
+
+        // more profiles than the cache holds while 1 is evaluated
+        for(long rank = 2; rank < 10; ++rank) {
+            cache.get(rank, r -> new float[] { r });
+        }
+
+        CompletableFuture<float[]> second = CompletableFuture.supplyAsync(() -> cache.get(1, slow));
+        release.countDown();
+
+        assertSame(first.join(), second.join());
+        assertEquals(1, numSlowEvaluations.get());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while(true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // wait on
+            }
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package sequentialinvestmentgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultWriterTest {
+
+    private static final int[] DECIMALS = { 0, 1, 2, 4, 6, 9 };
+
+    @TempDir
+    Path dir;
+
+    /**
+     * appendFixed() gives what String.format gives for %.nf, also for values that lie just next to a rounding step.
+     */
+    @Test
+    void appendFixedMatchesFormat() throws IOException {
+
+        List<Float> values = new ArrayList<>(List.of(0.0f, -0.0f, 0.5f, 0.125f, 0.00015f, 0.00025f, 0.99995f, 1.5f, 2.5f,
+                -2.5f, 1e-5f, -4e-5f, 0.3f, 0.9999f, 123456.79f, 999999.9f, Float.MIN_VALUE, 1e9f, -3e10f,
+                Float.NaN, Float.POSITIVE_INFINITY));
+
+        SplitMix64 random = new SplitMix64(1);
+        for(int i = 0; i < 20000; ++i) {
+            // any magnitude from about 1e-5 to 1e8
+            values.add(Float.intBitsToFloat((int) (0x37000000 + Long.remainderUnsigned(random.nextLong(), 0x15000000L))));
+            // short decimals, the values the simulation writes most
+            values.add((int) Long.remainderUnsigned(random.nextLong(), 200000) / 100000f - 1f);
+        }
+
+        Path file = dir.resolve("fixed.txt");
+        List<String> expected = new ArrayList<>();
+        try(ResultWriter writer = ResultWriter.open(file.toString())) {
+            for(float value : values) {
+                for(int decimals : DECIMALS) {
+                    writer.appendFixed(value, decimals).newLine();
+                    expected.add(String.format(Locale.ROOT, "%." + decimals + "f", value));
+                }
+            }
+        }
+
+        List<String> written = Files.readAllLines(file);
+        assertEquals(expected.size(), written.size());
+        for(int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), written.get(i), "value " + values.get(i / DECIMALS.length) + ", decimals " + DECIMALS[i % DECIMALS.length]);
+        }
+    }
+
+    @Test
+    void appendLongMatchesToString() throws IOException {
+
+        long[] values = { 0, 1, -1, 9, 10, -10, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+
+        Path file = dir.resolve("long.txt");
+        try(ResultWriter writer = ResultWriter.open(file.toString())) {
+            for(long value : values) {
+                writer.append(value).append(' ').append("ü").newLine();
+            }
+        }
+
+        List<String> written = Files.readAllLines(file);
+        for(int i = 0; i < values.length; ++i) {
+            assertEquals(values[i] + " ü", written.get(i));
+        }
+    }
+
+    /**
+     * more text than all buffers together hold, so the writer thread has to keep up.
+     */
+    @Test
+    void writesMoreThanItBuffers() throws IOException {
+
+        Path file = dir.resolve("large.txt");
+        int numLines = 1 << 20;
+
+        try(ResultWriter writer = ResultWriter.open(file.toString())) {
+            for(int i = 0; i < numLines; ++i) {
+                writer.append(i).append(" 0123456789").newLine();
+            }
+        }
+
+        List<String> written = Files.readAllLines(file);
+        assertEquals(numLines, written.size());
+        assertEquals("0 0123456789", written.get(0));
+        assertEquals((numLines - 1) + " 0123456789", written.get(numLines - 1));
+    }
+
+}
@@ -0,0 +1,40 @@
+package sequentialinvestmentgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * configs and checks shared by the tests.
+ */
+final class TestGames {
+
+    // how far a sampled rate may be off before a test fails, in standard errors
+    static final double NUM_SIGMAS = 6;
+
+    private TestGames() {
+    }
+
+    /**
+     * a game with starting wealth 100 and a fixed seed.
+     */
+    static Game.GameCfg cfg(int numStages, float p, int numRounds) {
+
+        Game.GameCfg cfg = new Game.GameCfg();
+        cfg.numStages = numStages;
+        cfg.numRounds = numRounds;
+        cfg.p = p;
+        cfg.M = 100;
+        cfg.seed = 42;
+
+        return cfg;
+    }
+
+    /**
+     * checks a rate sampled from n trials against its probability p.
+     */
+    static void assertSampled(double p, double n, double rate, String message) {
+
+        double sigma = Math.sqrt(p * (1 - p) / n);
+        assertEquals(p, rate, NUM_SIGMAS * sigma, message);
+    }
+
+}
@@ -1,7 +0,0 @@
-public interface Strategy {
-
-    float eval(float winProbability, int numStages, int currentStage, int numPlayers, float currentMoney);
-
-    String toText();
-
-}